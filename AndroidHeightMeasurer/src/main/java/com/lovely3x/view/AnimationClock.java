@@ -0,0 +1,28 @@
+package com.lovely3x.view;
+
+import android.view.animation.AnimationUtils;
+
+/**
+ * 动画使用的时间源
+ * 默认使用 {@link AnimationUtils#currentAnimationTimeMillis()}，
+ * 回放手势或者测试时可以替换成受控的时钟，让滚动和fling的结果可以重复
+ */
+public interface AnimationClock {
+
+    /**
+     * 系统的动画时钟
+     */
+    AnimationClock SYSTEM = new AnimationClock() {
+        @Override
+        public long currentAnimationTimeMillis() {
+            return AnimationUtils.currentAnimationTimeMillis();
+        }
+    };
+
+    /**
+     * 获取当前的动画时间
+     *
+     * @return 当前时间，单位毫秒，与 {@link android.os.SystemClock#uptimeMillis()} 同一个时基
+     */
+    long currentAnimationTimeMillis();
+}
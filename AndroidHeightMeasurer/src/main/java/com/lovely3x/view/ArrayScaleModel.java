@@ -0,0 +1,70 @@
+package com.lovely3x.view;
+
+import android.graphics.Paint;
+
+import java.util.Arrays;
+
+/**
+ * 由有序数组构成的刻度
+ * 适用于不均匀的刻度，比如衣服尺码表，数组可以有上百万个元素
+ * 下标到值的换算是 O(1)，值到下标的换算使用二分查找
+ */
+public class ArrayScaleModel extends ScaleModel {
+
+    private final double[] mValues;
+    private final int mDecimals;
+
+    /**
+     * @param sortedValues 严格递增的值，不会被复制，之后不能再修改
+     * @param decimals     文本显示的小数位数
+     */
+    public ArrayScaleModel(double[] sortedValues, int decimals) {
+        if (sortedValues.length == 0) throw new IllegalArgumentException("values must not be empty");
+        if (decimals < 0 || decimals > 9) throw new IllegalArgumentException("decimals must be in [0, 9]");
+        for (int i = 1; i < sortedValues.length; i++) {
+            if (!(sortedValues[i] > sortedValues[i - 1])) {
+                throw new IllegalArgumentException("values must be strictly increasing at index " + i);
+            }
+        }
+        this.mValues = sortedValues;
+        this.mDecimals = decimals;
+    }
+
+    @Override
+    public int getCount() {
+        return mValues.length;
+    }
+
+    @Override
+    public double getValue(int index) {
+        return mValues[index];
+    }
+
+    @Override
+    public int indexOf(double value) {
+        int index = Arrays.binarySearch(mValues, value);
+        if (index >= 0) return index;
+        int insertion = -index - 1;
+        if (insertion == 0) return 0;
+        if (insertion == mValues.length) return mValues.length - 1;
+        //取左右两边更接近的一个
+        return value - mValues[insertion - 1] <= mValues[insertion] - value ? insertion - 1 : insertion;
+    }
+
+    @Override
+    public int formatValue(int index, char[] buffer) {
+        return formatDecimal(mValues[index], mDecimals, buffer, 0);
+    }
+
+    /**
+     * 值是单调的，位数最多的文本出现在两端，只需要测量两端并把数字换成最宽的数字
+     * 重写了文本格式的子类不能保证这一点，使用逐个测量的默认实现
+     */
+    @Override
+    public float measureMaxLabelWidth(Paint paint, char[] buffer, int step) {
+        if (getClass() != ArrayScaleModel.class) return super.measureMaxLabelWidth(paint, buffer, step);
+        final int last = mValues.length - 1;
+        float first = measureWithWidestDigits(paint, buffer, formatValue(0, buffer));
+        return Math.max(first, measureWithWidestDigits(paint, buffer, formatValue(last - last % step, buffer)));
+    }
+}
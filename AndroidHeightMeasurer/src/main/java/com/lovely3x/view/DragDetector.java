@@ -0,0 +1,358 @@
+package com.lovely3x.view;
+
+import android.content.Context;
+import android.view.MotionEvent;
+import android.view.ViewConfiguration;
+
+/**
+ * 一维的拖动和fling探测器
+ * 代替 {@link android.view.GestureDetector} 和 {@link android.view.VelocityTracker}，
+ * 采样点保存在基本类型的环形缓冲区中，处理事件的过程中不分配任何对象
+ */
+public class DragDetector {
+
+    /**
+     * 使用二次最小二乘拟合估算速度
+     */
+    public static final int VELOCITY_LSQ2 = 0;
+    /**
+     * 使用冲量(动能)模型估算速度
+     */
+    public static final int VELOCITY_IMPULSE = 1;
+
+    /**
+     * 环形缓冲区的长度
+     */
+    private static final int HISTORY_SIZE = 20;
+    /**
+     * 只使用最近这段时间内的采样点估算速度
+     */
+    private static final long HORIZON_MS = 100;
+    /**
+     * 两个采样点之间超过这个时间就认为手指已经停下过
+     */
+    private static final long ASSUME_STOPPED_MS = 40;
+
+    private static final int INVALID_POINTER = -1;
+
+    /**
+     * 拖动回调
+     */
+    public interface Callback {
+        /**
+         * 手指按下
+         */
+        void onDown();
+
+        /**
+         * 手指拖动
+         *
+         * @param delta 沿着方向轴移动的距离，和坐标轴方向相同为正
+         */
+        void onDrag(float delta);
+
+        /**
+         * 手指抬起或者事件被取消
+         *
+         * @param velocity 抬起时沿着方向轴的速度，单位 px/s，速度小于最小fling速度时为 0
+         */
+        void onRelease(float velocity);
+    }
+
+    private final Callback mCallback;
+
+    private final int mTouchSlop;
+    private final int mMinimumFlingVelocity;
+    private final int mMaximumFlingVelocity;
+
+    private int mOrientation = HeightView.VERTICAL;
+    private int mVelocityStrategy = VELOCITY_LSQ2;
+
+    private final float[] mPositions = new float[HISTORY_SIZE];
+    private final long[] mTimes = new long[HISTORY_SIZE];
+    private int mHead;
+    private int mCount;
+
+    private int mActivePointerId = INVALID_POINTER;
+    private float mDownPosition;
+    private float mLastPosition;
+    private boolean mDragging;
+    /**
+     * 手势已经被放弃，直到下一次 ACTION_DOWN 之前忽略所有事件
+     */
+    private boolean mCanceled;
+
+    public DragDetector(Context context, Callback callback) {
+        mCallback = callback;
+        ViewConfiguration configuration = ViewConfiguration.get(context);
+        mTouchSlop = configuration.getScaledTouchSlop();
+        mMinimumFlingVelocity = configuration.getScaledMinimumFlingVelocity();
+        mMaximumFlingVelocity = configuration.getScaledMaximumFlingVelocity();
+    }
+
+    public int getOrientation() {
+        return mOrientation;
+    }
+
+    /**
+     * 设置探测的方向
+     *
+     * @param orientation {@link HeightView#HORIZONTAL} 或者 {@link HeightView#VERTICAL}
+     */
+    public void setOrientation(int orientation) {
+        this.mOrientation = orientation;
+    }
+
+    public int getVelocityStrategy() {
+        return mVelocityStrategy;
+    }
+
+    /**
+     * 设置速度估算的方式
+     *
+     * @param strategy {@link #VELOCITY_LSQ2} 或者 {@link #VELOCITY_IMPULSE}
+     */
+    public void setVelocityStrategy(int strategy) {
+        if (strategy != VELOCITY_LSQ2 && strategy != VELOCITY_IMPULSE) {
+            throw new IllegalArgumentException("unknown velocity strategy " + strategy);
+        }
+        this.mVelocityStrategy = strategy;
+    }
+
+    /**
+     * 是否正在拖动(已经超过了touch slop)
+     */
+    public boolean isDragging() {
+        return mDragging;
+    }
+
+    /**
+     * 处理触摸事件
+     */
+    public boolean onTouchEvent(MotionEvent event) {
+        final int action = event.getAction() & MotionEvent.ACTION_MASK;
+        if (action == MotionEvent.ACTION_DOWN) {
+            mCanceled = false;
+        } else if (mCanceled) {
+            return true;
+        }
+        switch (action) {
+            case MotionEvent.ACTION_DOWN: {
+                mActivePointerId = event.getPointerId(0);
+                mDownPosition = mLastPosition = axis(event, 0);
+                mDragging = false;
+                clearSamples();
+                addSample(event.getEventTime(), mLastPosition);
+                mCallback.onDown();
+                break;
+            }
+            case MotionEvent.ACTION_POINTER_DOWN: {
+                //新按下的手指接管拖动
+                int index = (event.getAction() & MotionEvent.ACTION_POINTER_INDEX_MASK) >> MotionEvent.ACTION_POINTER_INDEX_SHIFT;
+                switchPointer(event, index);
+                break;
+            }
+            case MotionEvent.ACTION_POINTER_UP: {
+                int index = (event.getAction() & MotionEvent.ACTION_POINTER_INDEX_MASK) >> MotionEvent.ACTION_POINTER_INDEX_SHIFT;
+                if (event.getPointerId(index) == mActivePointerId) {
+                    switchPointer(event, index == 0 ? 1 : 0);
+                }
+                break;
+            }
+            case MotionEvent.ACTION_MOVE: {
+                int index = event.findPointerIndex(mActivePointerId);
+                if (index < 0) break;
+                //批量送达的历史采样点也放进缓冲区，速度估算和预测才能用上完整的轨迹
+                final int historySize = event.getHistorySize();
+                for (int h = 0; h < historySize; h++) {
+                    addSample(event.getHistoricalEventTime(h), historicalAxis(event, index, h));
+                }
+                float position = axis(event, index);
+                addSample(event.getEventTime(), position);
+                if (!mDragging) {
+                    if (Math.abs(position - mDownPosition) <= mTouchSlop) break;
+                    mDragging = true;
+                }
+                float delta = position - mLastPosition;
+                mLastPosition = position;
+                if (delta != 0) mCallback.onDrag(delta);
+                break;
+            }
+            case MotionEvent.ACTION_UP: {
+                int index = event.findPointerIndex(mActivePointerId);
+                if (index >= 0) addSample(event.getEventTime(), axis(event, index));
+                float velocity = computeVelocity();
+                if (Math.abs(velocity) < mMinimumFlingVelocity) {
+                    velocity = 0;
+                } else if (Math.abs(velocity) > mMaximumFlingVelocity) {
+                    velocity = Math.signum(velocity) * mMaximumFlingVelocity;
+                }
+                finishGesture(velocity);
+                break;
+            }
+            case MotionEvent.ACTION_CANCEL:
+                finishGesture(0);
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * 放弃当前的手势，比如手势被双指缩放接管的时候
+     * 不会回调 {@link Callback#onRelease(float)}，直到下一次 ACTION_DOWN 之前的事件都会被忽略
+     */
+    public void cancel() {
+        mActivePointerId = INVALID_POINTER;
+        mDragging = false;
+        mCanceled = true;
+        clearSamples();
+    }
+
+    private void finishGesture(float velocity) {
+        mActivePointerId = INVALID_POINTER;
+        mDragging = false;
+        clearSamples();
+        mCallback.onRelease(velocity);
+    }
+
+    /**
+     * 切换跟踪的手指，从新手指的当前位置继续计算，避免跳动
+     */
+    private void switchPointer(MotionEvent event, int index) {
+        if (index >= event.getPointerCount()) return;
+        mActivePointerId = event.getPointerId(index);
+        mLastPosition = axis(event, index);
+        if (!mDragging) mDownPosition = mLastPosition;
+        clearSamples();
+        addSample(event.getEventTime(), mLastPosition);
+    }
+
+    private float axis(MotionEvent event, int index) {
+        return mOrientation == HeightView.HORIZONTAL ? event.getX(index) : event.getY(index);
+    }
+
+    private float historicalAxis(MotionEvent event, int index, int history) {
+        return mOrientation == HeightView.HORIZONTAL
+                ? event.getHistoricalX(index, history) : event.getHistoricalY(index, history);
+    }
+
+    private void clearSamples() {
+        mHead = 0;
+        mCount = 0;
+    }
+
+    private void addSample(long time, float position) {
+        mHead = (mHead + 1) % HISTORY_SIZE;
+        mPositions[mHead] = position;
+        mTimes[mHead] = time;
+        if (mCount < HISTORY_SIZE) mCount++;
+    }
+
+    /**
+     * 获取可以用于估算速度的采样点数量(从最新的开始往回数)
+     */
+    private int usableSamples() {
+        if (mCount == 0) return 0;
+        final long newest = mTimes[mHead];
+        long previous = newest;
+        int usable = 0;
+        for (int i = 0; i < mCount; i++) {
+            int index = (mHead - i + HISTORY_SIZE) % HISTORY_SIZE;
+            long time = mTimes[index];
+            if (newest - time > HORIZON_MS || previous - time > ASSUME_STOPPED_MS) break;
+            previous = time;
+            usable++;
+        }
+        return usable;
+    }
+
+    /**
+     * 估算当前的速度
+     *
+     * @return 沿着方向轴的速度，单位 px/s
+     */
+    public float computeVelocity() {
+        int n = usableSamples();
+        if (n < 2) return 0;
+        return mVelocityStrategy == VELOCITY_IMPULSE ? impulseVelocity(n) : lsqVelocity(n);
+    }
+
+    /**
+     * 二次最小二乘拟合 x(t) = a + b*t + c*t^2 (t 以最新的采样点为 0，单位毫秒)，速度为 b
+     * 采样点不足三个时退化为直线拟合
+     */
+    private float lsqVelocity(int n) {
+        final long newest = mTimes[mHead];
+        double s1 = 0, s2 = 0, s3 = 0, s4 = 0;
+        double sx = 0, stx = 0, st2x = 0;
+        for (int i = 0; i < n; i++) {
+            int index = (mHead - i + HISTORY_SIZE) % HISTORY_SIZE;
+            double t = mTimes[index] - newest;
+            double x = mPositions[index];
+            double t2 = t * t;
+            s1 += t;
+            s2 += t2;
+            s3 += t2 * t;
+            s4 += t2 * t2;
+            sx += x;
+            stx += t * x;
+            st2x += t2 * x;
+        }
+
+        if (n >= 3) {
+            //解正规方程
+            // | n  s1 s2 | |a|   | sx   |
+            // | s1 s2 s3 | |b| = | stx  |
+            // | s2 s3 s4 | |c|   | st2x |
+            double det = n * (s2 * s4 - s3 * s3) - s1 * (s1 * s4 - s3 * s2) + s2 * (s1 * s3 - s2 * s2);
+            if (Math.abs(det) > 1e-12) {
+                double detB = n * (stx * s4 - s3 * st2x) - sx * (s1 * s4 - s3 * s2) + s2 * (s1 * st2x - stx * s2);
+                return (float) (detB / det * 1000);
+            }
+        }
+        double det = n * s2 - s1 * s1;
+        if (Math.abs(det) < 1e-12) return 0;
+        return (float) ((n * stx - s1 * sx) / det * 1000);
+    }
+
+    /**
+     * 获取最新采样点的时间
+     */
+    public long getLastSampleTime() {
+        return mCount == 0 ? 0 : mTimes[mHead];
+    }
+
+    /**
+     * 预测手指在最新采样点之后一段时间的位移
+     *
+     * @param horizonMs 预测的时间长度，单位毫秒
+     * @return 沿着方向轴的预测位移，没有足够的采样点时为 0
+     */
+    public float predict(long horizonMs) {
+        if (!mDragging || horizonMs <= 0) return 0;
+        return computeVelocity() * horizonMs / 1000f;
+    }
+
+    /**
+     * 冲量模型：把每一段的速度变化看成对单位质量物体做的功，再由动能换算出速度
+     */
+    private float impulseVelocity(int n) {
+        double work = 0;
+        int oldest = (mHead - n + 1 + HISTORY_SIZE) % HISTORY_SIZE;
+        for (int i = 1; i < n; i++) {
+            int previous = (oldest + i - 1) % HISTORY_SIZE;
+            int current = (oldest + i) % HISTORY_SIZE;
+            long dt = mTimes[current] - mTimes[previous];
+            if (dt <= 0) continue;
+            double vPrevious = kineticEnergyToVelocity(work);
+            double vCurrent = (mPositions[current] - mPositions[previous]) * 1000.0 / dt;
+            work += (vCurrent - vPrevious) * Math.abs(vCurrent);
+            if (i == 1) work *= 0.5;
+        }
+        return (float) kineticEnergyToVelocity(work);
+    }
+
+    private static double kineticEnergyToVelocity(double work) {
+        return Math.signum(work) * Math.sqrt(2 * Math.abs(work));
+    }
+}
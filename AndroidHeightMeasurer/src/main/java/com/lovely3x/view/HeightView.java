@@ -1,17 +1,29 @@
 package com.lovely3x.view;
 
+import android.annotation.TargetApi;
+import android.content.BroadcastReceiver;
 import android.content.Context;
-import android.content.res.TypedArray;
+import android.content.Intent;
+import android.content.IntentFilter;
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.LinearGradient;
 import android.graphics.Paint;
 import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.Shader;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.PowerManager;
+import android.support.v4.content.ContextCompat;
 import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
-import android.util.TypedValue;
-import android.view.GestureDetector;
 import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
 import android.view.View;
+import android.view.WindowManager;
 
 import java.util.Arrays;
 
@@ -40,6 +52,94 @@ public class HeightView extends View {
     public static final float DEFAULT_RATIO = 2.0f;
 
     private static final String TAG = "HeightView";
+
+    /**
+     * 交给滚动器的相对距离的上限，留出余量避免滚动器内部计算时溢出
+     */
+    private static final int SCROLLER_RANGE = Integer.MAX_VALUE >> 1;
+
+    /**
+     * 默认的最小缩放比例
+     */
+    public static final float DEFAULT_MIN_ZOOM = 0.2f;
+    /**
+     * 默认的最大缩放比例
+     */
+    public static final float DEFAULT_MAX_ZOOM = 5f;
+
+    /**
+     * 完整的绘制质量
+     */
+    public static final int QUALITY_FULL = 0;
+    /**
+     * 降低的绘制质量：关闭抗锯齿
+     */
+    public static final int QUALITY_REDUCED = 1;
+    /**
+     * 最低的绘制质量：关闭抗锯齿，只绘制粗一级的文本
+     */
+    public static final int QUALITY_MINIMAL = 2;
+
+    /**
+     * 控件被隐藏或者离开窗口时，直接结束滚动动画，停在最终吸附的刻度上
+     */
+    public static final int SUSPEND_FAST_FORWARD = 0;
+    /**
+     * 控件被隐藏或者离开窗口时暂停滚动动画，重新显示后从暂停的位置继续
+     */
+    public static final int SUSPEND_PAUSE = 1;
+
+    /**
+     * 默认降低绘制质量的速度，单位 dp/s
+     */
+    private static final int DEFAULT_REDUCED_QUALITY_VELOCITY_DP = 2000;
+    /**
+     * 默认使用最低绘制质量的速度，单位 dp/s
+     */
+    private static final int DEFAULT_MINIMAL_QUALITY_VELOCITY_DP = 5000;
+    /**
+     * 速度降到阈值的这个比例以下才恢复质量，避免在阈值附近来回切换
+     */
+    private static final float QUALITY_HYSTERESIS = 0.7f;
+    /**
+     * 最低质量下保留的文本是文本步长的多少倍
+     */
+    private static final int QUALITY_LABEL_FACTOR = 5;
+    /**
+     * 恢复质量时被跳过的文本淡入的时间
+     */
+    private static final int QUALITY_FADE_MS = 150;
+
+    /**
+     * 文本所在的区域
+     */
+    private static final int REGION_LABELS = 1;
+    /**
+     * 刻度线所在的区域
+     */
+    private static final int REGION_TICKS = 1 << 1;
+    /**
+     * 高亮线所在的区域，是刻度线区域中靠近中心的一小段
+     */
+    private static final int REGION_HIGHLIGHT = 1 << 2;
+    /**
+     * 指示器所在的区域
+     */
+    private static final int REGION_MARKER = 1 << 3;
+    /**
+     * 随着滚动移动的内容
+     */
+    private static final int REGION_CONTENT = REGION_LABELS | REGION_TICKS;
+
+    /**
+     * 绘制的刻度之间的最小间距，单位dp，间距更小时按照细节层次跳过一部分刻度
+     */
+    private static final int MIN_TICK_SPACING_DP = 4;
+
+    /**
+     * 细节层次中长线间隔的倍数，每一级都是上一级的整数倍，保证跳过之后留下的刻度仍然对齐
+     */
+    private static final int[] LOD_MULTIPLIERS = {1, 5};
     /**
      * 阻尼系数，在fling下的阻力，阻力越大就飞的就约慢
      */
@@ -49,11 +149,15 @@ public class HeightView extends View {
     /**
      * 需要绘制多少行
      */
-    private int mLines = 240;
+    private int mLines;
     /**
      * 突出行 就是长线 那一行
      */
     private int mOutSideLine = 10;
+    /**
+     * 中线 每隔多少个刻度画一根中线，0 表示没有中线
+     */
+    private int mMidLineInterval = 5;
     /**
      * 每个outSideLine的步进值
      * 比如：
@@ -79,6 +183,10 @@ public class HeightView extends View {
      * 短线的长度
      */
     private float mShortLineLength;
+    /**
+     * 中线的长度，0 表示和短线一样长
+     */
+    private float mMidLineLength;
     /**
      * 长线的长度
      */
@@ -98,9 +206,195 @@ public class HeightView extends View {
      */
     private OverScroller mOverScroller;
     /**
-     * 手势探测器 用于探测手势
+     * 拖动探测器 用于探测拖动和fling
+     */
+    private DragDetector mDragDetector;
+
+    /**
+     * 双指缩放探测器
+     */
+    private ScaleGestureDetector mScaleGestureDetector;
+
+    /**
+     * 是否允许双指缩放
+     */
+    private boolean mZoomEnabled;
+
+    /**
+     * 当前的缩放比例，实际的刻度间距是 space * mZoom
+     */
+    private float mZoom = 1f;
+    private float mMinZoom = DEFAULT_MIN_ZOOM;
+    private float mMaxZoom = DEFAULT_MAX_ZOOM;
+
+    /**
+     * 绘制的刻度之间的最小间距，单位像素
+     */
+    private float mMinTickSpacing;
+
+    /**
+     * 是否根据滚动速度自动调整绘制质量
+     */
+    private boolean mAdaptiveQuality;
+    /**
+     * 降低绘制质量的速度，单位 px/s
+     */
+    private float mReducedQualityVelocity;
+    /**
+     * 使用最低绘制质量的速度，单位 px/s
+     */
+    private float mMinimalQualityVelocity;
+    /**
+     * 当前的绘制质量
+     */
+    private int mRenderQuality = QUALITY_FULL;
+    /**
+     * 被跳过的文本开始淡入的时间，没有在淡入时为 -1
+     */
+    private long mLabelFadeStartTime = -1;
+
+    /**
+     * 滚动动画使用的时钟
+     */
+    private AnimationClock mAnimationClock = AnimationClock.SYSTEM;
+    /**
+     * 交给滚动器的时钟，挂起时暂停
+     */
+    private final SuspendableClock mScrollerClock = new SuspendableClock();
+
+    /**
+     * 控件被隐藏或者离开窗口时对滚动动画的处理方式
+     */
+    private int mSuspendMode = SUSPEND_FAST_FORWARD;
+    /**
+     * 是否已经挂起，挂起期间不会推进动画，也不会安排新的帧
+     */
+    private boolean mSuspended = true;
+    /**
+     * 是否在窗口上，{@link #onDetachedFromWindow()} 期间窗口还没有真正移除，需要单独记录
+     */
+    private boolean mAttached;
+
+    /**
+     * 需要重绘的区域，复用避免分配
+     */
+    private final Rect mDirtyRect = new Rect();
+    /**
+     * 计算单个区域时使用的临时对象
+     */
+    private final Rect mRegionBounds = new Rect();
+    /**
+     * 本次绘制的裁剪区域
+     */
+    private final Rect mClipBounds = new Rect();
+    /**
+     * 本次绘制中各个区域是否在裁剪区域内
+     */
+    private boolean mDrawLabels;
+    private boolean mDrawTicks;
+    private boolean mDrawMarker;
+
+    /**
+     * 批量修改时等待执行的重新布局
+     */
+    private static final int PENDING_LAYOUT = 1;
+    /**
+     * 批量修改时等待执行的整体重绘
+     */
+    private static final int PENDING_INVALIDATE = 1 << 1;
+
+    /**
+     * {@link #beginBatchEdit()} 的嵌套层数
+     */
+    private int mBatchEditNesting;
+    /**
+     * 批量修改期间积累的操作
+     */
+    private int mPendingFlags;
+    /**
+     * 批量修改期间积累的需要重绘的区域
+     */
+    private int mPendingRegions;
+
+    /**
+     * 本次绘制的刻度步长，每隔多少个刻度绘制一个
+     */
+    private int mTickStep = 1;
+    /**
+     * 本次绘制的文本步长，每隔多少个刻度绘制一个文本，总是长线间隔的整数倍
+     */
+    private int mLabelStep = 1;
+
+    /**
+     * 当前的位置，单位像素
+     * 表示marker到第 0 个刻度的距离，刻度 i 对应的位置是 i * space * mZoom
+     * 使用double保存，范围远远超过int的像素坐标，控件自身的 scrollX/scrollY 始终为 0，
+     * 绘制时只把可见窗口内的刻度换算成相对于控件的坐标
+     */
+    private double mPosition;
+
+    /**
+     * 滚动器坐标的原点
+     * 滚动器只能处理int坐标，fling和吸附时只把相对于这个原点的距离交给滚动器
+     */
+    private double mScrollAnchor;
+
+    /**
+     * 是否开启触摸预测
+     */
+    private boolean mTouchPrediction;
+
+    /**
+     * 当前叠加在位置上的预测位移，只影响绘制
+     */
+    private float mPredictionOffset;
+
+    /**
+     * 屏幕的帧间隔，用于计算到下一次vsync的预测时间
      */
-    private GestureDetector mGestureDetector;
+    private long mFrameIntervalMs = 16;
+
+    /**
+     * 滚动动画的最大帧率，0 表示不限制
+     */
+    private int mMaxFrameRate;
+    /**
+     * 系统处于省电模式时滚动动画的最大帧率，0 表示不限制
+     */
+    private int mPowerSaveFrameRate;
+    /**
+     * 系统是否处于省电模式
+     */
+    private boolean mPowerSaveMode;
+    /**
+     * 监听省电模式的变化，只在设置了 {@link #mPowerSaveFrameRate} 并且控件在窗口中时注册
+     */
+    private BroadcastReceiver mPowerSaveReceiver;
+    /**
+     * 上一次推进滚动动画的时间
+     */
+    private long mLastAnimationFrameTime;
+    /**
+     * 限制帧率时在延迟的动画帧上触发重绘
+     */
+    private final Runnable mAnimationFrameRunnable = new Runnable() {
+        @Override
+        public void run() {
+            invalidateRegion(REGION_CONTENT);
+        }
+    };
+    /**
+     * 共享的动画调度器，为null时使用自己的重绘循环
+     */
+    private RulerAnimationScheduler mAnimationScheduler;
+    /**
+     * 是否已经注册到共享的动画调度器，由调度器维护
+     */
+    boolean mScheduledInSharedAnimation;
+    /**
+     * 共享调度时上一帧推进后的位置，位置没有变化的帧不重绘
+     */
+    private double mLastFramePosition = Double.NaN;
     /**
      * 高亮色选择中的颜色
      */
@@ -139,7 +433,7 @@ public class HeightView extends View {
      * 如果开始行为 10，步进值为10
      * 则 100,110,120,130
      */
-    private int mStartLineValue = 0;
+    private int mStartLineValue;
 
     /**
      * 用于记录当前的marker的位置
@@ -147,10 +441,64 @@ public class HeightView extends View {
     private int mCurrentLineIndex;
 
     /**
-     * 保存线位置的数组
+     * 副刻度区域的临时变量
+     */
+    private final Rect mSecondaryBounds = new Rect();
+
+    /**
+     * 最近一次测量使用的约束，{@link #bind(RulerState)} 用它判断尺寸是否变化
+     */
+    private int mWidthMeasureSpec;
+    private int mHeightMeasureSpec;
+    private boolean mHasMeasured;
+
+    /**
+     * 保存线位置的数组，只保存可见窗口内的刻度
      */
     private float[] mLinesArr = new float[4];
 
+    /**
+     * 刻度模型是否是按照整数参数在内部生成的，应用设置的模型不会被保存和重建
+     */
+    private boolean mInternalScaleModel;
+
+    /**
+     * 刻度的样式规则，没有设置时所有的刻度使用 {@link #mPaint}
+     */
+    private TickStyler mTickStyler;
+    /**
+     * 每根可见刻度的画笔槽位，以及按照槽位排序后的线组
+     */
+    private int[] mTickSlots = new int[1];
+    private float[] mSortedLinesArr = new float[4];
+    /**
+     * 每个槽位在排序后的线组中的结束位置
+     */
+    private int[] mSlotEnds = new int[1];
+
+    /**
+     * 是否是循环模式
+     * 循环模式下刻度 mLines 之后紧接着刻度 0，可以一直转下去
+     */
+    private boolean mCircular;
+
+    /**
+     * 本次绘制的第一个刻度下标，循环模式下没有折算，可能超出 [0, mLines]
+     */
+    private int mFirstVisibleIndex;
+    /**
+     * 本次绘制的最后一个刻度下标
+     */
+    private int mLastVisibleIndex;
+    /**
+     * 本次绘制的文本数量
+     */
+    private int mVisibleLabelCount;
+    /**
+     * 本次真正绘制的刻度线数量，包括高亮线，不包括被裁剪区域跳过和被样式规则隐藏的刻度
+     */
+    private int mDrawnTickCount;
+
     /**
      * 重力方向
      */
@@ -159,17 +507,17 @@ public class HeightView extends View {
     /**
      * 指示器的宽度
      */
-    private int mMarkerWidth = 45;
+    private int mMarkerWidth;
 
     /**
      * 指示器和长线的距离
      */
-    private int mMarkerSpace = 20;
+    private int mMarkerSpace;
 
     /**
      * 背景色
      */
-    private int mBackgroundColor = Color.parseColor("#03b7ee");
+    private int mBackgroundColor;
 
     /**
      * 标记物路径
@@ -180,12 +528,96 @@ public class HeightView extends View {
      */
     private int mMarkerColor;
 
+    /**
+     * 标记物路径对应的锚点、大小和方向，和当前的计算结果不同时才重建路径
+     */
+    private float mMarkerAnchorX = Float.NaN;
+    private float mMarkerAnchorY = Float.NaN;
+    private int mMarkerPathWidth;
+    private int mMarkerPathOrientation;
+
+    /**
+     * 自定义的标记物，设置后代替三角形
+     */
+    private Drawable mMarkerDrawable;
+
     private OnItemChangedListener mOnItemChangedListener;
 
+    private OnScaleValueChangedListener mOnScaleValueChangedListener;
+
+    /**
+     * 主副刻度值变化监听器
+     */
+    private OnDualValueChangedListener mOnDualValueChangedListener;
+
+    /**
+     * 副刻度，没有设置时为null
+     */
+    private SecondaryScale mSecondaryScale;
+
+    /**
+     * 叠加标注，没有设置时为null
+     */
+    private RulerOverlays mOverlays;
+    /**
+     * 绘制叠加标注的画笔
+     */
+    private Paint mOverlayPaint;
+    /**
+     * 叠加标注的查询结果，绘制时复用
+     */
+    private int[] mOverlayHits = new int[8];
+
+    /**
+     * 两端淡出的长度，单位像素，0 表示不淡出
+     */
+    private int mEdgeFadeLength;
+    /**
+     * 淡出的渐变，从背景色过渡到透明，只在尺寸、方向、背景色或者淡出长度变化后重新创建
+     */
+    private LinearGradient mEdgeFadeShader;
+    private Paint mEdgeFadePaint;
+
+    /**
+     * 磁性吸附点，没有设置时为null
+     */
+    private SnapPoints mSnapPoints;
+    /**
+     * 手指抬起后还没有应用吸附点，fling的落点被吸引后或者吸附结束后清除，每次手势只吸引一次
+     */
+    private boolean mMagnetPending;
+
+    /**
+     * 刻度模型，负责下标和值的换算以及文本格式
+     * 默认是由 {@link #mStartLineValue}、{@link #mSetupValue}、{@link #mLines} 构成的线性刻度
+     */
+    private ScaleModel mScaleModel;
+
+    /**
+     * 刻度文本的缓冲区，绘制时复用
+     */
+    private final char[] mLabelBuffer = new char[ScaleModel.MAX_LABEL_LENGTH];
+
+    /**
+     * 最宽的刻度文本的宽度，刻度模型或者文本大小变化时重新计算
+     */
+    private float mMaxTextWidth = -1;
+
+    /**
+     * 运行时性能统计，没有开启时为null
+     */
+    private RulerMetrics mMetrics;
+
+    /**
+     * 触摸事件记录器，没有设置时为null
+     */
+    private TouchRecorder mTouchRecorder;
+
 
     public HeightView(Context context) {
         super(context);
         init();
+        applyStyle(RulerStyle.obtain(context, null, 0), true);
     }
 
     public HeightView(Context context, AttributeSet attrs) {
@@ -195,39 +627,7 @@ public class HeightView extends View {
     public HeightView(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
         init();
-        if (attrs != null) {
-            TypedArray attributes = context.obtainStyledAttributes(attrs, R.styleable.HeightView, defStyleAttr, 0);
-            mOrientation = attributes.getInt(R.styleable.HeightView_orientation, VERTICAL);
-            mBackgroundColor = attributes.getColor(R.styleable.HeightView_backgroundColor, mBackgroundColor);
-            mTextColor = attributes.getColor(R.styleable.HeightView_textColor, mTextColor);
-            mTextPaint.setColor(mTextColor);
-            mTextSize = attributes.getDimension(R.styleable.HeightView_textSize, mTextSize);
-            mTextPaint.setTextSize(mTextSize);
-
-            mHighLightColor = attributes.getColor(R.styleable.HeightView_highlightColor, mHighLightColor);
-            mHighlightPaint.setColor(mHighLightColor);
-            mHighlightWidth = attributes.getDimension(R.styleable.HeightView_highlightLineWidth, mHighlightWidth);
-            mHighlightPaint.setStrokeWidth(mHighlightWidth);
-
-            mMarkerColor = attributes.getColor(R.styleable.HeightView_markerColor, mMarkerColor);
-            mMarkerPaint.setColor(mMarkerColor);
-
-            mLineColor = attributes.getColor(R.styleable.HeightView_lineColor, mLineColor);
-            mPaint.setColor(mLineColor);
-
-            mLineWidth = attributes.getDimension(R.styleable.HeightView_lineWidth, mLineWidth);
-            mPaint.setStrokeWidth(mLineWidth);
-
-            ratio = attributes.getFloat(R.styleable.HeightView_ratio, ratio);
-            mMarkerSpace = attributes.getDimensionPixelOffset(R.styleable.HeightView_markerSpace, mMarkerSpace);
-
-            mLines = attributes.getInt(R.styleable.HeightView_lines, mLines);
-            mStartLineValue = attributes.getInt(R.styleable.HeightView_startLineValue, mStartLineValue);
-
-            mMarkerWidth = attributes.getDimensionPixelOffset(R.styleable.HeightView_markerSize, mMarkerWidth);
-
-            attributes.recycle();
-        }
+        applyStyle(RulerStyle.obtain(context, attrs, defStyleAttr), true);
     }
 
 
@@ -237,125 +637,252 @@ public class HeightView extends View {
     private void init() {
         setLayerType(LAYER_TYPE_HARDWARE, null);
 
-        space = (int) (getResources().getDisplayMetrics().density * 7);
-        mHighLightColor = Color.parseColor("#1e7d9e");
-
-        mTextColor = mMarkerColor = Color.WHITE;
-
-        mTextSize = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 12, getResources().getDisplayMetrics());
-        mShortLineLength = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 12, getResources().getDisplayMetrics());
-        mLongLineLength = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 20, getResources().getDisplayMetrics());
-        mHighlightWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 1.5f, getResources().getDisplayMetrics());
-        mLineWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 1, getResources().getDisplayMetrics());
+        mMinTickSpacing = getResources().getDisplayMetrics().density * MIN_TICK_SPACING_DP;
+        mReducedQualityVelocity = getResources().getDisplayMetrics().density * DEFAULT_REDUCED_QUALITY_VELOCITY_DP;
+        mMinimalQualityVelocity = getResources().getDisplayMetrics().density * DEFAULT_MINIMAL_QUALITY_VELOCITY_DP;
 
         mMarkerPath = new Path();
 
         mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
         mPaint.setStyle(Paint.Style.STROKE);
-        mPaint.setColor(mLineColor = Color.WHITE);
-        mPaint.setStrokeWidth(mLineWidth);
 
         mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        mTextPaint.setTextSize(mTextSize);
         mTextPaint.setStyle(Paint.Style.FILL);
-        mTextPaint.setColor(mTextColor);
         mTextPaint.setTextAlign(Paint.Align.CENTER);
 
         mHighlightPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
         mHighlightPaint.setStyle(Paint.Style.STROKE);
-        mHighlightPaint.setColor(mHighLightColor);
-        mHighlightPaint.setStrokeWidth(mHighlightWidth);
 
         mMarkerPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        mHighlightPaint.setStyle(Paint.Style.FILL);
-        mHighlightPaint.setColor(mMarkerColor);
+        mMarkerPaint.setStyle(Paint.Style.FILL);
+
+        mOverlayPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mOverlayPaint.setStyle(Paint.Style.FILL);
+
+        mEdgeFadePaint = new Paint();
+        mEdgeFadePaint.setStyle(Paint.Style.FILL);
 
 
         mOverScroller = new OverScroller(getContext());
+        mOverScroller.setClock(mScrollerClock);
 
-        mGestureDetector = new GestureDetector(getContext(), new GestureDetector.SimpleOnGestureListener() {
+        mDragDetector = new DragDetector(getContext(), new DragDetector.Callback() {
             @Override
-            public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
-                switch (mOrientation) {
-                    case VERTICAL: {
-                        //往上滚动
-                        if (distanceY > 0) {
-                            //最大滚动到Marker位置
-                            int distance = (getHeight() >> 1) - getPaddingBottom()/* - (mStartLineValue) * space*/;
-                            if (getScrollY() + distanceY > distance) {
-                                scrollTo(0, distance);
-                                ViewCompat.postInvalidateOnAnimation(HeightView.this);
-                            } else if (getScrollY() + distanceY < distance) {
-                                scrollBy(0, (int) distanceY);
-                                ViewCompat.postInvalidateOnAnimation(HeightView.this);
-                            }
-                            //往下滚动
-                        } else if (distanceY < 0) {
-                            int minDistance = (mLines * space - (getHeight() >> 1)) + getPaddingBottom();
-                            if (getScrollY() < -minDistance) {
-                                scrollTo(0, -minDistance);
-                                ViewCompat.postInvalidateOnAnimation(HeightView.this);
-                            } else if (getScrollY() > -minDistance) {
-                                scrollBy(0, (int) distanceY);
-                                ViewCompat.postInvalidateOnAnimation(HeightView.this);
-                            }
-                        }
-                    }
-                    break;
-                    case HORIZONTAL: {
-                        //往左滚动
-                        if (distanceX > 0) {
-                            int maxX = (mLines /*+ mStartLineValue*/) * space - (getWidth() >> 1) + getPaddingLeft();
-                            if (getScrollX() + distanceX > maxX) {
-                                scrollTo(maxX, 0);
-                                ViewCompat.postInvalidateOnAnimation(HeightView.this);
-                            } else if (getScrollX() + distanceX <= maxX) {
-                                scrollBy((int) distanceX, 0);
-                                ViewCompat.postInvalidateOnAnimation(HeightView.this);
-                            }
-                            //往右滚动
-                        } else if (distanceX < 0) {
-                            int minX = -((getWidth() >> 1) - getPaddingLeft());
-                            if (getScrollX() + distanceX < minX) {
-                                scrollTo(minX, 0);
-                                ViewCompat.postInvalidateOnAnimation(HeightView.this);
-                            } else if (getScrollX() + distanceX >= minX) {
-                                scrollBy((int) distanceX, 0);
-                                ViewCompat.postInvalidateOnAnimation(HeightView.this);
-                            }
-                        }
-                    }
-                    break;
-                }
+            public void onDown() {
+                if (!mOverScroller.isFinished()) mOverScroller.abortAnimation();
+                mPreviousIsFling = false;
+                mMagnetPending = false;
+                mPredictionOffset = 0;
+                if (mAdaptiveQuality) updateRenderQuality(0);
+                if (mMetrics != null) mMetrics.onScrollerStateChanged(RulerMetrics.SCROLLER_IDLE);
+            }
 
-                return true;
+            @Override
+            public void onDrag(float delta) {
+                performDrag(axisSign() * delta);
             }
 
             @Override
-            public boolean onFling(MotionEvent e1, MotionEvent e2, float velocityX, float velocityY) {
-                switch (mOrientation) {
-                    case VERTICAL: {
-                        int minDistance = ((mLines) * space - (getHeight() >> 1)) + getPaddingBottom();
-                        int maxDistance = (getHeight() >> 1) - getPaddingBottom();
-                        mOverScroller.fling(0, getScrollY(), 0, (int) (-velocityY / ratio), 0, 0, -minDistance, maxDistance, 0, 100);
-                    }
-                    break;
-                    case HORIZONTAL: {
-                        int minX = -((getWidth() >> 1) - getPaddingLeft());
-                        int maxX = (mLines /*+ mStartLineValue*/) * space - (getWidth() >> 1) + getPaddingLeft();
-                        mOverScroller.fling(getScrollX(), 0, (int) (-velocityX / ratio), 0, minX, maxX, 0, 0, 100, 0);
-                    }
-                    break;
+            public void onRelease(float velocity) {
+                clearPrediction();
+                mMagnetPending = mSnapPoints != null;
+                //速度足够就直接fling，fling结束后在 computeScroll 中吸附，否则立即吸附
+                if (velocity != 0) {
+                    performFling(velocity);
+                } else {
+                    adjustMarker(true);
                 }
-                ViewCompat.postInvalidateOnAnimation(HeightView.this);
+            }
+        });
+
+        mScaleGestureDetector = new ScaleGestureDetector(getContext(), new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScaleBegin(ScaleGestureDetector detector) {
+                //缩放接管手势，放弃正在进行的拖动
+                mDragDetector.cancel();
+                if (!mOverScroller.isFinished()) mOverScroller.abortAnimation();
+                mPreviousIsFling = false;
+                clearPrediction();
+                return true;
+            }
+
+            @Override
+            public boolean onScale(ScaleGestureDetector detector) {
+                applyZoom(mZoom * detector.getScaleFactor());
                 return true;
             }
+
+            @Override
+            public void onScaleEnd(ScaleGestureDetector detector) {
+                adjustMarker(true);
+            }
         });
     }
 
+    /**
+     * 按照拖动的距离移动位置
+     * 位置使用double保存，不足一个像素的距离不会丢失，开启触摸预测时预测的位移只在绘制时叠加
+     *
+     * @param delta 位置的变化量，单位像素
+     */
+    private void performDrag(float delta) {
+        double target = limitPosition(mPosition + delta);
+        float prediction = 0;
+        if (mTouchPrediction) {
+            //和滚动器、回放使用同一个时钟；过期的采样最多只预测一帧
+            long horizon = mDragDetector.getLastSampleTime() + mFrameIntervalMs - mAnimationClock.currentAnimationTimeMillis();
+            horizon = Math.max(0, Math.min(mFrameIntervalMs, horizon));
+            float predicted = axisSign() * mDragDetector.predict(horizon);
+            //循环模式没有边界，预测的位移不需要限制
+            prediction = mCircular ? predicted : (float) (clampPosition(target + predicted) - target);
+        }
+        if (target == mPosition && prediction == mPredictionOffset) return;
+        mPosition = target;
+        mPredictionOffset = prediction;
+        postInvalidateRegionOnAnimation(REGION_CONTENT);
+    }
+
+    /**
+     * 去掉预测的位移，回到手指实际对应的位置
+     */
+    private void clearPrediction() {
+        if (mPredictionOffset != 0) {
+            mPredictionOffset = 0;
+            postInvalidateRegionOnAnimation(REGION_CONTENT);
+        }
+    }
+
+    /**
+     * 手指沿着方向轴移动时位置变化的方向
+     * 垂直方向上手指向下拖动，刻度跟着向下，位置变大；水平方向上手指向右拖动，位置变小
+     */
+    private int axisSign() {
+        return mOrientation == HORIZONTAL ? -1 : 1;
+    }
+
+    /**
+     * 所有刻度的总长度，单位像素
+     */
+    private double getContentLength() {
+        return (double) mLines * getSpacing();
+    }
+
+    /**
+     * 实际的刻度间距，单位像素
+     */
+    private float getSpacing() {
+        return space * mZoom;
+    }
+
+    private double clampPosition(double position) {
+        return Math.max(0, Math.min(getContentLength(), position));
+    }
+
+    /**
+     * 循环模式下一圈的长度
+     */
+    private double getPeriod() {
+        return ((double) mLines + 1) * getSpacing();
+    }
+
+    /**
+     * 把位置限制在合法的范围内
+     * 普通模式下限制在两端之间；循环模式下折算到第一圈内，坐标不会随着转过的圈数增长
+     */
+    private double limitPosition(double position) {
+        if (!mCircular) return clampPosition(position);
+        double period = getPeriod();
+        return position - Math.floor(position / period) * period;
+    }
+
+    /**
+     * 把循环模式下没有折算的刻度下标折算到 [0, mLines]
+     */
+    private int wrapIndex(long index) {
+        long count = mLines + 1L;
+        long wrapped = index % count;
+        return (int) (wrapped < 0 ? wrapped + count : wrapped);
+    }
+
+    /**
+     * 和位置最接近的刻度所在的位置
+     * 循环模式下可能是下一圈的刻度 0，吸附结束后再折算回第一圈
+     */
+    private double snapPosition(double position) {
+        if (mCircular) {
+            double spacing = getSpacing();
+            return Math.floor(position / spacing + 0.5) * spacing;
+        }
+        return indexToPosition(positionToIndex(position));
+    }
+
+    /**
+     * 被吸附点吸引后的落点所在的刻度的位置
+     */
+    private double magnetPosition(double position) {
+        double spacing = getSpacing();
+        double index = mSnapPoints.attract(position / spacing, mCircular ? mLines + 1L : 0);
+        return snapPosition(index * spacing);
+    }
+
+    /**
+     * 刻度下标对应的位置
+     */
+    private double indexToPosition(int index) {
+        return (double) index * getSpacing();
+    }
+
+    /**
+     * 和位置最接近的刻度下标
+     */
+    private int positionToIndex(double position) {
+        long index = (long) Math.floor(position / getSpacing() + 0.5);
+        if (mCircular) return wrapIndex(index);
+        return (int) Math.max(0, Math.min(mLines, index));
+    }
+
+    /**
+     * 把相对于 {@link #mScrollAnchor} 的距离限制在滚动器可以处理的范围内
+     */
+    private static int toScrollerOffset(double distance) {
+        return (int) Math.max(-SCROLLER_RANGE, Math.min(SCROLLER_RANGE, distance));
+    }
+
+    /**
+     * 以手指抬起时的速度开始fling
+     * 滚动器只在以当前位置为原点的int坐标中运动，所以总长度再大也不会溢出
+     * 循环模式下没有边界，也不会回弹
+     *
+     * @param velocity 手指沿着方向轴的速度，单位 px/s
+     */
+    private void performFling(float velocity) {
+        mScrollAnchor = mPosition;
+        int scrollerVelocity = (int) (axisSign() * velocity / ratio);
+        if (mCircular) {
+            mOverScroller.fling(0, 0, scrollerVelocity, 0, -SCROLLER_RANGE, SCROLLER_RANGE, 0, 0, 0, 0);
+        } else {
+            mOverScroller.fling(0, 0, scrollerVelocity, 0,
+                    toScrollerOffset(-mPosition), toScrollerOffset(getContentLength() - mPosition), 0, 0, 100, 0);
+        }
+        if (mMagnetPending) {
+            //落点在吸附范围内时直接修改fling的终点，而不是在fling结束后再滚动一次；
+            //fling被边界截断时修改失败，结束后吸附时再吸引
+            double landing = mScrollAnchor + mOverScroller.getFinalX();
+            double target = magnetPosition(landing);
+            if (target == snapPosition(landing) || mOverScroller.retargetFlingX(toScrollerOffset(Math.round(target - mScrollAnchor)))) {
+                mMagnetPending = false;
+            }
+        }
+        mPreviousIsFling = true;
+        if (mMetrics != null) mMetrics.onScrollerStateChanged(RulerMetrics.SCROLLER_FLING);
+        postInvalidateRegionOnAnimation(REGION_CONTENT);
+    }
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        mWidthMeasureSpec = widthMeasureSpec;
+        mHeightMeasureSpec = heightMeasureSpec;
+        mHasMeasured = true;
         setMeasuredDimension(measureWidth(widthMeasureSpec), measureHeight(heightMeasureSpec));
     }
 
@@ -368,12 +895,14 @@ public class HeightView extends View {
             case MeasureSpec.UNSPECIFIED: {
                 switch (mOrientation) {
                     case HORIZONTAL: {
-                        return mLines * space;
+                        return getMeasuredContentLength();
                     }
                     case VERTICAL:
                     default: {
-                        float textWidth = mTextPaint.measureText(String.valueOf(mLines / mSetupValue));
-                        float width = textWidth + mLongLineLength + mMarkerWidth + mMarkerSpace + getPaddingLeft() + getPaddingRight();
+                        float width = getMaxTextWidth() + mLongLineLength + mMarkerWidth + mMarkerSpace + getPaddingLeft() + getPaddingRight();
+                        if (mSecondaryScale != null) {
+                            width += mMarkerSpace + mLongLineLength + mSecondaryScale.getMaxTextWidth(mTextPaint, mLabelBuffer);
+                        }
                         return (int) width;
                     }
                 }
@@ -395,11 +924,12 @@ public class HeightView extends View {
                 switch (mOrientation) {
                     case HORIZONTAL: {
                         float height = mTextPaint.getTextSize() + mLongLineLength + mMarkerWidth + mMarkerSpace + getPaddingTop() + getPaddingBottom();
+                        if (mSecondaryScale != null) height += mMarkerSpace + mLongLineLength + mTextPaint.getTextSize();
                         return (int) height;
                     }
                     case VERTICAL:
                     default: {
-                        return mLines * space;
+                        return getMeasuredContentLength();
                     }
                 }
             }
@@ -410,22 +940,19 @@ public class HeightView extends View {
     }
 
 
+    /**
+     * 刻度的总长度可能远远超过View能够表示的尺寸，测量时限制在 {@link #MEASURED_SIZE_MASK} 以内
+     */
+    private int getMeasuredContentLength() {
+        //缩放不会引起重新布局，测量时使用没有缩放的长度
+        return (int) Math.min((double) mLines * space, MEASURED_SIZE_MASK);
+    }
+
     @Override
     public boolean onTouchEvent(MotionEvent event) {
-        switch (event.getAction() & MotionEvent.ACTION_MASK) {
-            case MotionEvent.ACTION_DOWN:
-                if (!mOverScroller.isFinished()) mOverScroller.abortAnimation();
-                //adjustMarker(true);
-                break;
-            case MotionEvent.ACTION_MOVE:
-                break;
-            case MotionEvent.ACTION_UP:
-            case MotionEvent.ACTION_CANCEL:
-                adjustMarker(true);
-                break;
-        }
-        mGestureDetector.onTouchEvent(event);
-        return true;
+        if (mTouchRecorder != null) mTouchRecorder.record(event);
+        if (mZoomEnabled) mScaleGestureDetector.onTouchEvent(event);
+        return mDragDetector.onTouchEvent(event);
     }
 
 
@@ -434,42 +961,24 @@ public class HeightView extends View {
      */
     public void adjustMarker(boolean adjustPosition) {
         final int previous = mCurrentLineIndex;
+        double expect;
+        if (adjustPosition && mMagnetPending && mSnapPoints != null) {
+            mMagnetPending = false;
+            expect = magnetPosition(mPosition);
+            mCurrentLineIndex = positionToIndex(expect);
+        } else {
+            expect = snapPosition(mPosition);
+            mCurrentLineIndex = positionToIndex(mPosition);
+        }
 
-        switch (mOrientation) {
-            case VERTICAL: {
-                int startY = (getHeight() >> 1) - getPaddingBottom();
-                int scrollY = getScrollY();
-                int progress = scrollY - startY;
-                mCurrentLineIndex = -progress / space;
-
-                if (mCurrentLineIndex > mLines) mCurrentLineIndex = mLines;
-                else if (mCurrentLineIndex < 0) mCurrentLineIndex = 0;
-
-                int expectY = space * -mCurrentLineIndex + startY;
-                if (adjustPosition && scrollY != expectY) {
-                    //scrollTo(0, expectY);
-                    mOverScroller.startScroll(0, getScrollY(), 0, expectY - scrollY, 0);
-                    ViewCompat.postInvalidateOnAnimation(this);
-                }
-            }
-            break;
-            case HORIZONTAL: {
-                int startX = -((getWidth() >> 1) - getPaddingLeft());
-                int scrollX = getScrollX();
-                int progress = startX - scrollX;
-                mCurrentLineIndex = -progress / space;
-                if (mCurrentLineIndex > mLines) mCurrentLineIndex = mLines;
-                else if (mCurrentLineIndex < 0) mCurrentLineIndex = 0;
-
-                int expectX = space * mCurrentLineIndex + startX;
-
-                if (adjustPosition && scrollX != expectX) {
-                    //scrollTo(0, expectY);
-                    mOverScroller.startScroll(getScrollX(), 0, expectX - scrollX, 0, 0);
-                    ViewCompat.postInvalidateOnAnimation(this);
-                }
-            }
-            break;
+        if (adjustPosition && mPosition != expect) {
+            //滚动器只处理整数像素，不足一个像素的部分直接并到原点上，保证吸附结束时正好落在刻度上
+            int distance = toScrollerOffset(Math.round(expect - mPosition));
+            mScrollAnchor = expect - distance;
+            mPosition = mScrollAnchor;
+            mOverScroller.startScroll(0, 0, distance, 0, 0);
+            if (mMetrics != null) mMetrics.onScrollerStateChanged(RulerMetrics.SCROLLER_SETTLE);
+            postInvalidateRegionOnAnimation(REGION_CONTENT);
         }
         if (previous != mCurrentLineIndex) onValueChanged();
     }
@@ -480,332 +989,1794 @@ public class HeightView extends View {
     public void onValueChanged() {
         if (mCurrentLineIndex >= 0 && mCurrentLineIndex <= mLines) {
             int index = mCurrentLineIndex;
-            int value = mStartLineValue + (index * mSetupValue);
-            if (mOnItemChangedListener != null) mOnItemChangedListener.onItemChanged(index, value);
+            double value = mScaleModel.getValue(index);
+            if (mOnItemChangedListener != null || mOnScaleValueChangedListener != null || mOnDualValueChangedListener != null) {
+                if (mMetrics != null) mMetrics.onDispatchStart();
+                if (mOnItemChangedListener != null) {
+                    mOnItemChangedListener.onItemChanged(index, (int) Math.round(value));
+                }
+                if (mOnScaleValueChangedListener != null) {
+                    mOnScaleValueChangedListener.onScaleValueChanged(index, value);
+                }
+                if (mOnDualValueChangedListener != null) {
+                    double secondaryValue = mSecondaryScale == null ? value : mSecondaryScale.convert(value);
+                    mOnDualValueChangedListener.onDualValueChanged(index, value, secondaryValue);
+                }
+                if (mMetrics != null) mMetrics.onDispatchEnd();
+            }
         }
     }
 
     @Override
     public void computeScroll() {
+        //挂起期间不推进动画，恢复时再处理；使用外部时钟时(比如回放)由调用者驱动，不受影响
+        if (mSuspended && mAnimationClock == AnimationClock.SYSTEM) return;
+        if (isSharedAnimation() && !mAnimationScheduler.isInFrame()) {
+            //由调度器在帧回调中统一推进，绘制时只负责把新开始的动画注册进去
+            if (isAnimating()) mAnimationScheduler.add(this);
+            return;
+        }
+        final int frameRate = getFrameRateCap();
+        if (frameRate > 0 && !mOverScroller.isFinished()) {
+            //留出半帧的余量，避免vsync时间的抖动把本该推进的帧跳过
+            long elapsed = mAnimationClock.currentAnimationTimeMillis() - mLastAnimationFrameTime;
+            if (elapsed + (mFrameIntervalMs >> 1) < 1000 / frameRate) {
+                scheduleAnimationFrame();
+                return;
+            }
+        }
         if (mOverScroller.computeScrollOffset()) {
             mPreviousIsFling = true;
-            switch (mOrientation) {
-                case VERTICAL:
-                    scrollTo(0, mOverScroller.getCurrY());
-                    break;
-                case HORIZONTAL:
-                    scrollTo(mOverScroller.getCurrX(), 0);
-                    break;
-            }
-            ViewCompat.postInvalidateOnAnimation(this);
+            mLastAnimationFrameTime = mAnimationClock.currentAnimationTimeMillis();
+            if (mMetrics != null) mMetrics.onAnimationFrame();
+            mPosition = mScrollAnchor + mOverScroller.getCurrX();
+            if (mCircular) mPosition = limitPosition(mPosition);
+            if (mAdaptiveQuality) updateRenderQuality(Math.abs(mOverScroller.getCurrVelocity()));
+            scheduleAnimationFrame();
         } else {
             if (mPreviousIsFling) {
                 mPreviousIsFling = false;
+                if (mAdaptiveQuality) updateRenderQuality(0);
+                if (mMetrics != null) mMetrics.onScrollerStateChanged(RulerMetrics.SCROLLER_IDLE);
                 adjustMarker(true);
             }
         }
     }
 
     /**
-     * 重置线组
+     * 安排下一个动画帧
+     * 没有限制帧率时在下一次vsync重绘；限制帧率时延迟到下一个允许推进的时间，
+     * 滚动器按照真实的时间计算位置，所以降低帧率只会降低采样的频率，不会改变运动的轨迹
      */
-    private void resetLinesArr() {
-        if (mLinesArr.length < (mLines + 1) * 4) {
-            //需要重新创建数组
-            mLinesArr = new float[(mLines + 1) * 4];
+    private void scheduleAnimationFrame() {
+        if (isSharedAnimation()) {
+            //调度器每一帧都会再次推进，这里只在位置变化时重绘
+            if (mPosition != mLastFramePosition) {
+                mLastFramePosition = mPosition;
+                invalidateRegion(REGION_CONTENT);
+            }
+            return;
+        }
+        final int frameRate = getFrameRateCap();
+        if (frameRate <= 0) {
+            postInvalidateRegionOnAnimation(REGION_CONTENT);
+            return;
+        }
+        long delay = mLastAnimationFrameTime + 1000 / frameRate - mAnimationClock.currentAnimationTimeMillis()
+                - (mFrameIntervalMs >> 1);
+        removeCallbacks(mAnimationFrameRunnable);
+        if (delay <= 0) {
+            postInvalidateRegionOnAnimation(REGION_CONTENT);
         } else {
-            Arrays.fill(mLinesArr, 0);
+            ViewCompat.postOnAnimationDelayed(this, mAnimationFrameRunnable, delay);
         }
     }
 
-    @Override
-    protected void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
-        adjustMarker(false);
-        canvas.drawColor(mBackgroundColor);
-        switch (mOrientation) {
-            case VERTICAL:
-                drawVertical(canvas);
-                break;
-            case HORIZONTAL:
-                drawHorizontal(canvas);
-                break;
+    /**
+     * 当前生效的最大帧率
+     *
+     * @return 0 表示不限制
+     */
+    private int getFrameRateCap() {
+        int frameRate = mMaxFrameRate;
+        if (mPowerSaveMode && mPowerSaveFrameRate > 0 && (frameRate <= 0 || mPowerSaveFrameRate < frameRate)) {
+            frameRate = mPowerSaveFrameRate;
         }
+        return frameRate;
     }
 
     /**
-     * 绘制 方向为垂直方向时的布局
-     *
-     * @param canvas 画布
+     * 让性能统计中的跳帧判断使用限制后的帧间隔
      */
-    protected void drawVertical(Canvas canvas) {
-        //vertical mode
-        // bottom start position
-        int bottom = getHeight() - getPaddingBottom();
-        int left = getPaddingLeft();
-
-        float maxTextWidth = mTextPaint.measureText(String.valueOf(mLines / mOutSideLine * mSetupValue));
-
-        int shakeCenter = (getHeight() >> 1) + getScrollY();
-
-        //绘制三角形
-        //如果想使用图片，可以自行绘制图片
-        mMarkerPath.reset();
-        mMarkerPath.moveTo(left + maxTextWidth + mLongLineLength + mMarkerSpace, shakeCenter);
-        mMarkerPath.lineTo(left + maxTextWidth + mLongLineLength + mMarkerSpace + mMarkerWidth, shakeCenter - mMarkerWidth);
-        mMarkerPath.lineTo(left + maxTextWidth + mLongLineLength + mMarkerSpace + mMarkerWidth, shakeCenter + mMarkerWidth);
-        mMarkerPath.lineTo(left + maxTextWidth + mLongLineLength + mMarkerSpace, shakeCenter);
-        canvas.drawPath(mMarkerPath, mMarkerPaint);
-
-        resetLinesArr();
+    private void syncMetricsFrameInterval() {
+        if (mMetrics == null) return;
+        final int frameRate = getFrameRateCap();
+        long intervalMs = frameRate > 0 ? Math.max(mFrameIntervalMs, 1000 / frameRate) : mFrameIntervalMs;
+        mMetrics.setFrameIntervalNanos(intervalMs * 1000000L);
+    }
 
-        for (int i = 0; i <= mLines; i++) {
-            int value = mStartLineValue + (i * mSetupValue);
-            float lineLength;
-            switch (i % mOutSideLine) {
-                case ZERO:
-                    String text = String.valueOf(value);
-                    float currentTextWidth = mTextPaint.measureText(text);
-                    canvas.drawText(text, left + (maxTextWidth - currentTextWidth) / 2, bottom - i * space, mTextPaint);
-                    lineLength = mLongLineLength;
-                    break;
-                default:
-                    lineLength = mShortLineLength;
-                    break;
-            }
-            mLinesArr[i * 4] = left + maxTextWidth;
-            mLinesArr[i * 4 + 1] = bottom - i * space;
-            mLinesArr[i * 4 + 2] = left + maxTextWidth + lineLength;
-            mLinesArr[i * 4 + 3] = bottom - i * space;
+    /**
+     * 根据滚动速度调整绘制质量
+     * 升级和降级使用不同的阈值，速度在阈值附近波动时不会来回切换
+     *
+     * @param velocity 滚动速度的绝对值，单位 px/s
+     */
+    private void updateRenderQuality(float velocity) {
+        int quality;
+        if (velocity >= mMinimalQualityVelocity
+                || (mRenderQuality == QUALITY_MINIMAL && velocity >= mMinimalQualityVelocity * QUALITY_HYSTERESIS)) {
+            quality = QUALITY_MINIMAL;
+        } else if (velocity >= mReducedQualityVelocity
+                || (mRenderQuality != QUALITY_FULL && velocity >= mReducedQualityVelocity * QUALITY_HYSTERESIS)) {
+            quality = QUALITY_REDUCED;
+        } else {
+            quality = QUALITY_FULL;
         }
+        applyRenderQuality(quality);
+    }
 
-        //绘制线
-        canvas.drawLines(mLinesArr, mPaint);
-        //绘制高亮线
-        canvas.drawLine(left + maxTextWidth,
-                bottom - mCurrentLineIndex * space,
-                left + maxTextWidth + (((mCurrentLineIndex) % mOutSideLine == 0) ? mLongLineLength : mShortLineLength),
-                bottom - mCurrentLineIndex * space,
-                mHighlightPaint);
+    private void applyRenderQuality(int quality) {
+        if (quality == mRenderQuality) return;
+        //离开最低质量时被跳过的文本逐渐淡入，而不是突然全部出现
+        if (mRenderQuality == QUALITY_MINIMAL) mLabelFadeStartTime = mAnimationClock.currentAnimationTimeMillis();
+        else if (quality == QUALITY_MINIMAL) mLabelFadeStartTime = -1;
+        mRenderQuality = quality;
+        boolean antiAlias = quality == QUALITY_FULL;
+        mPaint.setAntiAlias(antiAlias);
+        mTextPaint.setAntiAlias(antiAlias);
+        mHighlightPaint.setAntiAlias(antiAlias);
+        postInvalidateRegionOnAnimation(REGION_CONTENT);
     }
 
     /**
-     * 绘制水平方向上的布局
+     * 获取不在粗一级步长上的文本的透明度
      *
-     * @param canvas 画布
+     * @return 0 表示不绘制，255 表示正常绘制
      */
-    protected void drawHorizontal(Canvas canvas) {
-
-        //Horizontal mode
-        // bottom position
-        int bottom = getHeight() - getPaddingBottom();
-        int left = getPaddingLeft();
-
-        float maxTextWidth = mTextPaint.measureText(String.valueOf(mLines / mOutSideLine * mSetupValue));
-
-        //中心
-        int shakeCenter = (getWidth() >> 1) + getScrollX();
-
-        //三角形顶点
-        float vertexY = getHeight() - getPaddingBottom() - mTextPaint.getTextSize() - mLongLineLength - mMarkerSpace;
-
-        //绘制三角形
-        mMarkerPath.reset();
-        mMarkerPath.moveTo(shakeCenter, vertexY);
-        mMarkerPath.lineTo(shakeCenter - mMarkerWidth, vertexY - mMarkerWidth);
-        mMarkerPath.lineTo(shakeCenter + mMarkerWidth, vertexY - mMarkerWidth);
-        mMarkerPath.lineTo(shakeCenter, vertexY);
-        canvas.drawPath(mMarkerPath, mMarkerPaint);
-        //验证线组
-        resetLinesArr();
-
-        //生成线组
-
-        for (int i = 0; i <= mLines; i++) {
-            int value = mStartLineValue + (i * mSetupValue);
-            float lineLength;
-            switch (i % mOutSideLine) {
-                case ZERO:
-                    String text = String.valueOf(value);
-                    canvas.drawText(text, left + i * space, bottom, mTextPaint);
-                    lineLength = mLongLineLength;
-                    break;
-                default:
-                    lineLength = mShortLineLength;
-                    break;
-            }
-
-            /*startX*/
-            mLinesArr[i * 4] = left + i * space;
-            /*startY*/
-            mLinesArr[i * 4 + 1] = bottom - mTextPaint.getTextSize();
-            /*stopX*/
-            mLinesArr[i * 4 + 2] = left + i * space;
-            /*stopY*/
-            mLinesArr[i * 4 + 3] = bottom - (mTextPaint.getTextSize() + lineLength);
+    private int getFineLabelAlpha() {
+        if (mRenderQuality == QUALITY_MINIMAL) return 0;
+        if (mLabelFadeStartTime < 0) return 255;
+        long elapsed = mAnimationClock.currentAnimationTimeMillis() - mLabelFadeStartTime;
+        if (elapsed >= QUALITY_FADE_MS) {
+            mLabelFadeStartTime = -1;
+            return 255;
         }
-
-        //绘制线组
-        canvas.drawLines(mLinesArr, mPaint);
-
-//        //绘制当前选中的线条
-        canvas.drawLine(left + mCurrentLineIndex * space,
-                (bottom - mTextPaint.getTextSize()),
-                left + mCurrentLineIndex * space,
-                (bottom - mTextPaint.getTextSize()) - (mCurrentLineIndex % mOutSideLine == 0 ? mLongLineLength : mShortLineLength),
-                mHighlightPaint);
+        postInvalidateRegionOnAnimation(REGION_CONTENT);
+        return (int) (255 * Math.max(0, elapsed) / QUALITY_FADE_MS);
     }
 
+    /**
+     * 获取指定刻度文本的透明度
+     */
+    private int getLabelAlpha(int index, int fineAlpha) {
+        if (fineAlpha == 255 || index % ((long) mLabelStep * QUALITY_LABEL_FACTOR) == 0) return 255;
+        return fineAlpha;
+    }
 
-    @Override
-    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
-        super.onSizeChanged(w, h, oldw, oldh);
-        adjustMarker(true);
+    /**
+     * 是否还有没有结束的滚动动画
+     */
+    boolean isAnimating() {
+        return !mOverScroller.isFinished() || mPreviousIsFling;
     }
 
-    public int getLines() {
-        return mLines;
+    /**
+     * 只重绘指定的区域
+     *
+     * @param regions {@link #REGION_LABELS} 等区域的组合
+     */
+    private void invalidateRegion(int regions) {
+        if (mBatchEditNesting > 0) {
+            mPendingRegions |= regions;
+            return;
+        }
+        computeDirtyRect(regions);
+        if (!mDirtyRect.isEmpty()) invalidate(mDirtyRect);
     }
 
-    public void setLines(int mLines) {
-        this.mLines = mLines;
+    /**
+     * 样式或者尺寸变化后重新布局并重绘，批量修改期间推迟到 {@link #endBatchEdit()}
+     */
+    private void requestRulerLayout() {
+        if (mBatchEditNesting > 0) {
+            mPendingFlags |= PENDING_LAYOUT | PENDING_INVALIDATE;
+            return;
+        }
         requestLayout();
+        invalidate();
     }
 
-    public int getOutSideLine() {
-        return mOutSideLine;
+    /**
+     * 重绘整个控件，批量修改期间推迟到 {@link #endBatchEdit()}
+     */
+    private void invalidateRuler() {
+        if (mBatchEditNesting > 0) {
+            mPendingFlags |= PENDING_INVALIDATE;
+            return;
+        }
+        invalidate();
     }
 
-    public void setOutSideLine(int mOutSideLine) {
-        this.mOutSideLine = mOutSideLine;
-        invalidate();
+    /**
+     * 开始批量修改
+     * 在 {@link #endBatchEdit()} 之前调用的setter只修改属性，不会立即重新布局或者重绘，
+     * 比如切换主题或者单位时同时修改多个属性，最后只会执行一次布局和一次重绘。可以嵌套调用
+     */
+    public void beginBatchEdit() {
+        mBatchEditNesting++;
     }
 
-    public int getSetupValue() {
-        return mSetupValue;
+    /**
+     * 结束批量修改，执行期间积累的布局和重绘
+     */
+    public void endBatchEdit() {
+        if (mBatchEditNesting == 0) throw new IllegalStateException("endBatchEdit() without beginBatchEdit()");
+        if (--mBatchEditNesting > 0) return;
+        final int flags = mPendingFlags;
+        final int regions = mPendingRegions;
+        mPendingFlags = 0;
+        mPendingRegions = 0;
+        if ((flags & PENDING_LAYOUT) != 0) requestLayout();
+        if ((flags & PENDING_INVALIDATE) != 0) {
+            invalidate();
+        } else if (regions != 0) {
+            invalidateRegion(regions);
+        }
     }
 
-    public void setSetupValue(int mSetupValue) {
-        this.mSetupValue = mSetupValue;
-        invalidate();
+    /**
+     * 是否正在批量修改
+     */
+    public boolean isInBatchEdit() {
+        return mBatchEditNesting > 0;
     }
 
-    public int getCurrentLineIndex() {
-        return mCurrentLineIndex;
+    /**
+     * 在下一次vsync时只重绘指定的区域
+     *
+     * @param regions {@link #REGION_LABELS} 等区域的组合
+     */
+    private void postInvalidateRegionOnAnimation(int regions) {
+        //批量修改期间和 invalidateRegion 一样合并到 endBatchEdit() 中，结束时滚动动画会在重绘时继续推进
+        if (mBatchEditNesting > 0) {
+            mPendingRegions |= regions;
+            return;
+        }
+        computeDirtyRect(regions);
+        if (!mDirtyRect.isEmpty()) {
+            ViewCompat.postInvalidateOnAnimation(this, mDirtyRect.left, mDirtyRect.top, mDirtyRect.right, mDirtyRect.bottom);
+        }
     }
 
-    public void setCurrentLineIndex(int currentLineIndex) {
-        int distance = currentLineIndex * space;
-        if (mOverScroller != null && !mOverScroller.isFinished()) mOverScroller.abortAnimation();
-        switch (mOrientation) {
-            case HORIZONTAL:
-                int startX = (getWidth() >> 1) - getPaddingLeft();
-                scrollTo(distance - startX, getScrollY());
-                break;
-            case VERTICAL:
-                int startY = ((getHeight() >> 1) - getPaddingBottom());
-                scrollTo(getScrollX(), -distance + startY);
-                break;
+    /**
+     * 把多个区域合并到 {@link #mDirtyRect}
+     */
+    private void computeDirtyRect(int regions) {
+        mDirtyRect.setEmpty();
+        for (int region = REGION_LABELS; region <= REGION_MARKER; region <<= 1) {
+            if ((regions & region) == 0) continue;
+            getRegionBounds(region, mRegionBounds);
+            mDirtyRect.union(mRegionBounds);
         }
-        adjustMarker(true);
-        postInvalidate();
     }
 
-    public int getSpace() {
+    /**
+     * 计算单个区域的范围
+     * 区域只和尺寸、样式有关，和滚动的位置无关，每次直接计算，不需要在样式变化时维护
+     *
+     * @param region 区域
+     * @param out    保存结果
+     */
+    private void getRegionBounds(int region, Rect out) {
+        final int width = getWidth();
+        final int height = getHeight();
+        //还没有布局时没有需要重绘的区域，也不需要刻度模型和文本宽度(比如构造函数中设置标记物时)
+        if (width == 0 || height == 0) {
+            out.setEmpty();
+            return;
+        }
+        final float stroke = Math.max(mLineWidth, mHighlightWidth);
+        if (mOrientation == HORIZONTAL) {
+            final int bottom = height - getPaddingBottom();
+            final int center = width >> 1;
+            final float textSize = mTextPaint.getTextSize();
+            final int ticksTop = (int) Math.floor(bottom - textSize - mLongLineLength - stroke);
+            final int ticksBottom = (int) Math.ceil(bottom - textSize + stroke);
+            switch (region) {
+                case REGION_LABELS:
+                    out.set(0, (int) Math.floor(bottom - textSize) - 1, width, height);
+                    break;
+                case REGION_TICKS:
+                    out.set(0, ticksTop, width, ticksBottom);
+                    break;
+                case REGION_HIGHLIGHT: {
+                    int extent = getHighlightExtent(stroke);
+                    out.set(center - extent, ticksTop, center + extent, ticksBottom);
+                    break;
+                }
+                case REGION_MARKER:
+                    getMarkerBounds(out);
+                    out.set(out.left - 1, out.top - 1, out.right + 1, out.bottom + 1);
+                    break;
+            }
+        } else {
+            final int left = getPaddingLeft();
+            final int center = height >> 1;
+            final float maxTextWidth = getMaxTextWidth();
+            final int ticksLeft = (int) Math.floor(left + maxTextWidth - stroke);
+            final int ticksRight = (int) Math.ceil(left + maxTextWidth + mLongLineLength + stroke);
+            switch (region) {
+                case REGION_LABELS:
+                    out.set(0, 0, (int) Math.ceil(left + maxTextWidth) + 1, height);
+                    break;
+                case REGION_TICKS:
+                    out.set(ticksLeft, 0, ticksRight, height);
+                    break;
+                case REGION_HIGHLIGHT: {
+                    int extent = getHighlightExtent(stroke);
+                    out.set(ticksLeft, center - extent, ticksRight, center + extent);
+                    break;
+                }
+                case REGION_MARKER:
+                    getMarkerBounds(out);
+                    out.set(out.left - 1, out.top - 1, out.right + 1, out.bottom + 1);
+                    break;
+            }
+        }
+        if (mSecondaryScale != null && (region == REGION_LABELS || region == REGION_TICKS)) {
+            getSecondaryBounds(stroke, mSecondaryBounds);
+            out.union(mSecondaryBounds);
+        }
+        if (mOverlays != null && region == REGION_TICKS) {
+            //标注的文本绘制在刻度线的外侧
+            if (mOrientation == HORIZONTAL) {
+                out.union(0, 0, width, out.bottom);
+            } else {
+                out.union(out.left, 0, width, height);
+            }
+        }
+    }
+
+    /**
+     * 副刻度所在的区域，在标记物的另一侧，包括副刻度的刻度线和文本
+     */
+    private void getSecondaryBounds(float stroke, Rect out) {
+        if (mOrientation == HORIZONTAL) {
+            out.set(0, 0, getWidth(), (int) Math.ceil(getSecondaryBase() + mLongLineLength + stroke));
+        } else {
+            out.set((int) Math.floor(getSecondaryBase() - mLongLineLength - stroke), 0, getWidth(), getHeight());
+        }
+    }
+
+    /**
+     * 副刻度的刻度线的起点，垂直方向上是x，水平方向上是y，刻度线从这里指向标记物
+     */
+    private float getSecondaryBase() {
+        if (mOrientation == HORIZONTAL) {
+            return getMarkerAnchorY() - mMarkerWidth - mMarkerSpace - mLongLineLength;
+        }
+        return getMarkerAnchorX() + mMarkerWidth + mMarkerSpace + mLongLineLength;
+    }
+
+    /**
+     * 标记物三角形的顶点，水平方向上在刻度上方，垂直方向上在刻度右侧
+     */
+    private float getMarkerAnchorX() {
+        if (mOrientation == HORIZONTAL) return getWidth() >> 1;
+        return getPaddingLeft() + getMaxTextWidth() + mLongLineLength + mMarkerSpace;
+    }
+
+    private float getMarkerAnchorY() {
+        if (mOrientation == HORIZONTAL) {
+            return getHeight() - getPaddingBottom() - mTextPaint.getTextSize() - mLongLineLength - mMarkerSpace;
+        }
+        return getHeight() >> 1;
+    }
+
+    /**
+     * 计算标记物的范围，自定义的标记物也会被绘制在这个范围内
+     */
+    private void getMarkerBounds(Rect out) {
+        final float anchorX = getMarkerAnchorX();
+        final float anchorY = getMarkerAnchorY();
+        if (mOrientation == HORIZONTAL) {
+            out.set((int) Math.floor(anchorX - mMarkerWidth), (int) Math.floor(anchorY - mMarkerWidth),
+                    (int) Math.ceil(anchorX + mMarkerWidth), (int) Math.ceil(anchorY));
+        } else {
+            out.set((int) Math.floor(anchorX), (int) Math.floor(anchorY - mMarkerWidth),
+                    (int) Math.ceil(anchorX + mMarkerWidth), (int) Math.ceil(anchorY + mMarkerWidth));
+        }
+    }
+
+    /**
+     * 高亮线离中心的最大距离，吸附之前高亮线最多偏离中心半个刻度，再加上触摸预测的位移
+     */
+    private int getHighlightExtent(float stroke) {
+        return (int) Math.ceil(getSpacing() + Math.abs(mPredictionOffset) + stroke);
+    }
+
+    /**
+     * 计算本次绘制中哪些区域在裁剪区域内，只需要重绘一部分时跳过其他的区域
+     */
+    private void updateVisibleRegions(Canvas canvas) {
+        if (!canvas.getClipBounds(mClipBounds)) {
+            mDrawLabels = mDrawTicks = mDrawMarker = false;
+            return;
+        }
+        mDrawLabels = isRegionInClip(REGION_LABELS);
+        mDrawTicks = isRegionInClip(REGION_TICKS);
+        mDrawMarker = isRegionInClip(REGION_MARKER);
+    }
+
+    private boolean isRegionInClip(int region) {
+        getRegionBounds(region, mRegionBounds);
+        return Rect.intersects(mClipBounds, mRegionBounds);
+    }
+
+    /**
+     * 绘制标记物
+     * 标记物相对于控件是固定的，在刻度之后绘制，盖在刻度上面
+     */
+    private void drawMarker(Canvas canvas) {
+        if (mMarkerDrawable != null) {
+            getMarkerBounds(mRegionBounds);
+            mMarkerDrawable.setBounds(mRegionBounds);
+            mMarkerDrawable.draw(canvas);
+            return;
+        }
+        updateMarkerPath();
+        canvas.drawPath(mMarkerPath, mMarkerPaint);
+    }
+
+    /**
+     * 只在标记物的位置、大小或者方向变化后重建三角形路径，滚动时直接复用
+     */
+    private void updateMarkerPath() {
+        final float anchorX = getMarkerAnchorX();
+        final float anchorY = getMarkerAnchorY();
+        if (anchorX == mMarkerAnchorX && anchorY == mMarkerAnchorY
+                && mMarkerWidth == mMarkerPathWidth && mOrientation == mMarkerPathOrientation) {
+            return;
+        }
+        mMarkerAnchorX = anchorX;
+        mMarkerAnchorY = anchorY;
+        mMarkerPathWidth = mMarkerWidth;
+        mMarkerPathOrientation = mOrientation;
+
+        mMarkerPath.reset();
+        mMarkerPath.moveTo(anchorX, anchorY);
+        if (mOrientation == HORIZONTAL) {
+            mMarkerPath.lineTo(anchorX - mMarkerWidth, anchorY - mMarkerWidth);
+            mMarkerPath.lineTo(anchorX + mMarkerWidth, anchorY - mMarkerWidth);
+        } else {
+            mMarkerPath.lineTo(anchorX + mMarkerWidth, anchorY - mMarkerWidth);
+            mMarkerPath.lineTo(anchorX + mMarkerWidth, anchorY + mMarkerWidth);
+        }
+        mMarkerPath.close();
+    }
+
+    @Override
+    protected boolean verifyDrawable(Drawable who) {
+        return who == mMarkerDrawable || super.verifyDrawable(who);
+    }
+
+    @Override
+    public void invalidateDrawable(Drawable drawable) {
+        if (drawable == mMarkerDrawable) {
+            //软件绘制时只重绘标记物所在的区域；硬件加速时脏区域会被忽略，整个控件都会重新记录
+            invalidateRegion(REGION_MARKER);
+        } else {
+            super.invalidateDrawable(drawable);
+        }
+    }
+
+    @Override
+    protected void drawableStateChanged() {
+        super.drawableStateChanged();
+        if (mMarkerDrawable != null && mMarkerDrawable.isStateful()) {
+            mMarkerDrawable.setState(getDrawableState());
+        }
+    }
+
+    @Override
+    public void jumpDrawablesToCurrentState() {
+        super.jumpDrawablesToCurrentState();
+        if (mMarkerDrawable != null) mMarkerDrawable.jumpToCurrentState();
+    }
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        //changedView 可能是祖先，按照整条链上的可见性决定，被隐藏的父控件中的标记物不会继续播放动画
+        if (mMarkerDrawable != null) mMarkerDrawable.setVisible(isShown(), false);
+        updateSuspended();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateSuspended();
+    }
+
+    /**
+     * 根据是否在窗口上以及是否可见挂起或者恢复滚动动画
+     */
+    private void updateSuspended() {
+        boolean suspended = !mAttached || getWindowVisibility() != VISIBLE || !isShown();
+        if (suspended == mSuspended) return;
+        mSuspended = suspended;
+        if (suspended) {
+            suspendAnimation();
+        } else {
+            resumeAnimation();
+        }
+    }
+
+    /**
+     * 挂起滚动动画，移除所有已经安排的帧，之后不再占用CPU
+     */
+    private void suspendAnimation() {
+        removeCallbacks(mAnimationFrameRunnable);
+        if (mAnimationScheduler != null) mAnimationScheduler.remove(this);
+        //手指还没有抬起时不会再收到事件，当作拖动结束
+        if (mDragDetector.isDragging()) mDragDetector.cancel();
+        if (mSuspendMode == SUSPEND_PAUSE) {
+            mScrollerClock.pause();
+        } else {
+            finishAnimation();
+        }
+    }
+
+    /**
+     * 恢复滚动动画，暂停的动画从暂停的位置继续，停在刻度之间的位置重新吸附
+     */
+    private void resumeAnimation() {
+        mScrollerClock.resume();
+        if (isAnimating()) {
+            postInvalidateRegionOnAnimation(REGION_CONTENT);
+        } else {
+            adjustMarker(true);
+        }
+    }
+
+    /**
+     * 滚动动画结束后最终吸附的位置
+     *
+     * @param position 滚动器停下的位置
+     */
+    private double getSettlePosition(double position) {
+        return mMagnetPending && mSnapPoints != null ? magnetPosition(position) : snapPosition(position);
+    }
+
+    /**
+     * 立即结束滚动动画，直接跳到最终吸附的刻度上，选中的刻度变化时照常回调
+     */
+    private void finishAnimation() {
+        final boolean animating = isAnimating();
+        if (!mOverScroller.isFinished()) {
+            mPosition = mScrollAnchor + mOverScroller.getFinalX();
+            mOverScroller.abortAnimation();
+        }
+        mPreviousIsFling = false;
+        mPosition = limitPosition(getSettlePosition(mPosition));
+        mMagnetPending = false;
+        if (animating) {
+            if (mAdaptiveQuality) updateRenderQuality(0);
+            if (mMetrics != null) mMetrics.onScrollerStateChanged(RulerMetrics.SCROLLER_IDLE);
+        }
+        adjustMarker(false);
+        invalidateRegion(REGION_CONTENT);
+    }
+
+    /**
+     * 保证线组能够容纳指定数量的刻度
+     */
+    private void ensureLinesArr(int count) {
+        if (mLinesArr.length < count * 4) {
+            //需要重新创建数组
+            mLinesArr = new float[count * 4];
+        }
+        if (mTickStyler != null && mTickSlots.length < count) {
+            mTickSlots = new int[count];
+            mSortedLinesArr = new float[count * 4];
+        }
+    }
+
+    /**
+     * 刻度的层级
+     */
+    private int getTickLevel(int index) {
+        if (index % mOutSideLine == 0) return TickStyler.LEVEL_MAJOR;
+        if (mMidLineInterval > 0 && index % mMidLineInterval == 0) return TickStyler.LEVEL_MID;
+        return TickStyler.LEVEL_MINOR;
+    }
+
+    /**
+     * 刻度层级对应的长度
+     */
+    private float getTickLength(int level) {
+        switch (level) {
+            case TickStyler.LEVEL_MAJOR:
+                return mLongLineLength;
+            case TickStyler.LEVEL_MID:
+                return getMidLineLength();
+            default:
+                return mShortLineLength;
+        }
+    }
+
+    /**
+     * 绘制线组
+     * 设置了样式规则时按照槽位做一次计数排序，每个槽位只调用一次 drawLines
+     *
+     * @param count 刻度的数量
+     * @return 真正绘制的刻度线数量
+     */
+    private int drawTickLines(Canvas canvas, int count) {
+        final TickStyler styler = mTickStyler;
+        if (styler == null) {
+            canvas.drawLines(mLinesArr, 0, count * 4, mPaint);
+            return count;
+        }
+        final int slots = styler.getSlotCount();
+        if (mSlotEnds.length < slots) mSlotEnds = new int[slots];
+        final int[] ends = mSlotEnds;
+        Arrays.fill(ends, 0, slots, 0);
+        for (int k = 0; k < count; k++) {
+            int slot = mTickSlots[k];
+            if (slot >= 0 && slot < slots) ends[slot]++;
+        }
+        //先把 ends 变成每个槽位的起点，放置的同时向后移动，放置结束后正好是终点
+        int start = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            int size = ends[slot];
+            ends[slot] = start;
+            start += size;
+        }
+        final float[] lines = mLinesArr;
+        final float[] sorted = mSortedLinesArr;
+        for (int k = 0; k < count; k++) {
+            int slot = mTickSlots[k];
+            if (slot < 0 || slot >= slots) continue;
+            int from = k * 4;
+            int to = ends[slot]++ * 4;
+            sorted[to] = lines[from];
+            sorted[to + 1] = lines[from + 1];
+            sorted[to + 2] = lines[from + 2];
+            sorted[to + 3] = lines[from + 3];
+        }
+        start = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            int end = ends[slot];
+            if (end > start) canvas.drawLines(sorted, start * 4, (end - start) * 4, styler.getPaint(slot, mPaint));
+            start = end;
+        }
+        return start;
+    }
+
+    /**
+     * 计算本次需要绘制的刻度范围
+     * 两端多算出文本的宽度，保证一半露在外面的文本也能画出来
+     * 循环模式下不限制在 [0, mLines] 内，绘制时再折算
+     *
+     * @param position   绘制时的位置
+     * @param halfExtent 控件在方向轴上长度的一半
+     */
+    private void computeVisibleRange(double position, int halfExtent) {
+        final float spacing = getSpacing();
+        double margin = halfExtent + getMaxTextWidth() + mTextSize + spacing * mTickStep;
+        double first = Math.floor((position - margin) / spacing);
+        double last = Math.ceil((position + margin) / spacing);
+        if (!mCircular) {
+            first = Math.max(0, Math.min(mLines, first));
+            last = Math.max(0, Math.min(mLines, last));
+        }
+        //第一个刻度对齐到步长上，跳过的刻度在滚动时才不会闪烁
+        long aligned = (long) first;
+        long remainder = aligned % mTickStep;
+        if (remainder < 0) remainder += mTickStep;
+        mFirstVisibleIndex = (int) (aligned - remainder);
+        mLastVisibleIndex = (int) last;
+    }
+
+    /**
+     * 根据当前的刻度间距计算细节层次
+     * 间距太小时只绘制每5个或者每一个长线间隔的刻度，文本只绘制在间距足够放下文本的长线上，
+     * 所以任何缩放比例下每一帧绘制的数量都是有上限的
+     */
+    private void updateLevelOfDetail() {
+        final float spacing = getSpacing();
+        if (spacing >= mMinTickSpacing) {
+            mTickStep = 1;
+        } else if (mOutSideLine > 5 && mOutSideLine % 5 == 0 && spacing * 5 >= mMinTickSpacing) {
+            mTickStep = 5;
+        } else {
+            mTickStep = majorStep(spacing, mMinTickSpacing);
+        }
+        float labelExtent = (mOrientation == HORIZONTAL ? getMaxTextWidth() : mTextSize) + mTextSize / 2;
+        mLabelStep = Math.max(mTickStep, majorStep(spacing, labelExtent));
+    }
+
+    /**
+     * 满足最小间距的长线步长，按照长线间隔的 1、5、10、50、100... 倍递增
+     */
+    private int majorStep(float spacing, float minSpacing) {
+        long total = mLines + 1L;
+        for (long base = mOutSideLine; ; base *= 10) {
+            for (int multiplier : LOD_MULTIPLIERS) {
+                long step = base * multiplier;
+                if (step * spacing >= minSpacing || step >= total) {
+                    return (int) Math.min(step, Integer.MAX_VALUE);
+                }
+            }
+        }
+    }
+
+    /**
+     * 本次绘制的刻度数量
+     */
+    private int getVisibleTickCount() {
+        return (int) (((long) mLastVisibleIndex - mFirstVisibleIndex) / mTickStep + 1);
+    }
+
+    /**
+     * 绘制时使用的位置，包括触摸预测的位移
+     */
+    private double getDrawPosition() {
+        return mPosition + mPredictionOffset;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (mMetrics != null) mMetrics.onDrawStart();
+        adjustMarker(false);
+        //drawColor 只会填充裁剪区域
+        canvas.drawColor(mBackgroundColor);
+        updateVisibleRegions(canvas);
+        updateLevelOfDetail();
+        computeVisibleRange(getDrawPosition(), (mOrientation == HORIZONTAL ? getWidth() : getHeight()) >> 1);
+        //区间标注在刻度线下面，单点标注和文本在刻度线上面
+        if (mOverlays != null && mDrawTicks) drawOverlays(canvas, true);
+        mDrawnTickCount = 0;
+        switch (mOrientation) {
+            case VERTICAL:
+                drawVertical(canvas);
+                break;
+            case HORIZONTAL:
+                drawHorizontal(canvas);
+                break;
+        }
+        if (mOverlays != null && mDrawTicks) drawOverlays(canvas, false);
+        if (mSecondaryScale != null && !mCircular && (mDrawLabels || mDrawTicks)) drawSecondaryScale(canvas);
+        //标记物不淡出
+        if (mEdgeFadeLength > 0) drawEdgeFade(canvas);
+        if (mDrawMarker) drawMarker(canvas);
+        if (mMetrics != null) {
+            mMetrics.onTicksDrawn(mDrawnTickCount, mVisibleLabelCount);
+            mMetrics.onDrawEnd();
+        }
+    }
+
+    /**
+     * 绘制 方向为垂直方向时的布局
+     *
+     * @param canvas 画布
+     */
+    protected void drawVertical(Canvas canvas) {
+        //vertical mode
+        int left = getPaddingLeft();
+
+        float maxTextWidth = getMaxTextWidth();
+
+        int shakeCenter = getHeight() >> 1;
+
+        if (!mDrawLabels && !mDrawTicks) {
+            mVisibleLabelCount = 0;
+            return;
+        }
+
+        final double position = getDrawPosition();
+        final int first = mFirstVisibleIndex;
+        final int count = getVisibleTickCount();
+        final int step = mTickStep;
+        final float stepSpacing = getSpacing() * step;
+        ensureLinesArr(count);
+        int labels = 0;
+        final int fineLabelAlpha = getFineLabelAlpha();
+        final int textAlpha = Color.alpha(mTextColor);
+
+        //大坐标只在double中相减，float中只保存相对于第一个可见刻度的偏移
+        float firstY = (float) (shakeCenter - (indexToPosition(first) - position));
+        for (int k = 0; k < count; k++) {
+            long unwrapped = first + (long) k * step;
+            int i = mCircular ? wrapIndex(unwrapped) : (int) unwrapped;
+            float y = firstY - k * stepSpacing;
+            float lineLength;
+            int level;
+            switch (i % mOutSideLine) {
+                case ZERO:
+                    level = TickStyler.LEVEL_MAJOR;
+                    lineLength = mLongLineLength;
+                    if (!mDrawLabels || i % mLabelStep != 0) break;
+                    int alpha = getLabelAlpha(i, fineLabelAlpha);
+                    if (alpha == 0) break;
+                    if (alpha != 255) mTextPaint.setAlpha(textAlpha * alpha / 255);
+                    int length = mScaleModel.formatValue(i, mLabelBuffer);
+                    float currentTextWidth = mTextPaint.measureText(mLabelBuffer, 0, length);
+                    canvas.drawText(mLabelBuffer, 0, length, left + (maxTextWidth - currentTextWidth) / 2, y, mTextPaint);
+                    if (alpha != 255) mTextPaint.setAlpha(textAlpha);
+                    labels++;
+                    break;
+                default:
+                    level = getTickLevel(i);
+                    lineLength = getTickLength(level);
+                    break;
+            }
+            if (mTickStyler != null) mTickSlots[k] = mTickStyler.getSlot(i, level);
+            mLinesArr[k * 4] = left + maxTextWidth;
+            mLinesArr[k * 4 + 1] = y;
+            mLinesArr[k * 4 + 2] = left + maxTextWidth + lineLength;
+            mLinesArr[k * 4 + 3] = y;
+        }
+
+        mVisibleLabelCount = labels;
+        if (!mDrawTicks) return;
+
+        //绘制线，再加上高亮线
+        mDrawnTickCount = drawTickLines(canvas, count) + 1;
+        //绘制高亮线
+        float highlightY = (float) (shakeCenter - (snapPosition(mPosition) - position));
+        canvas.drawLine(left + maxTextWidth,
+                highlightY,
+                left + maxTextWidth + getTickLength(getTickLevel(mCurrentLineIndex)),
+                highlightY,
+                mHighlightPaint);
+    }
+
+    /**
+     * 绘制水平方向上的布局
+     *
+     * @param canvas 画布
+     */
+    protected void drawHorizontal(Canvas canvas) {
+
+        //Horizontal mode
+        // bottom position
+        int bottom = getHeight() - getPaddingBottom();
+
+        //中心
+        int shakeCenter = getWidth() >> 1;
+
+        if (!mDrawLabels && !mDrawTicks) {
+            mVisibleLabelCount = 0;
+            return;
+        }
+
+        final double position = getDrawPosition();
+        final int first = mFirstVisibleIndex;
+        final int count = getVisibleTickCount();
+        final int step = mTickStep;
+        final float stepSpacing = getSpacing() * step;
+        ensureLinesArr(count);
+        int labels = 0;
+        final int fineLabelAlpha = getFineLabelAlpha();
+        final int textAlpha = Color.alpha(mTextColor);
+
+        //生成线组
+        //大坐标只在double中相减，float中只保存相对于第一个可见刻度的偏移
+        float firstX = (float) (shakeCenter + (indexToPosition(first) - position));
+        for (int k = 0; k < count; k++) {
+            long unwrapped = first + (long) k * step;
+            int i = mCircular ? wrapIndex(unwrapped) : (int) unwrapped;
+            float x = firstX + k * stepSpacing;
+            float lineLength;
+            int level;
+            switch (i % mOutSideLine) {
+                case ZERO:
+                    level = TickStyler.LEVEL_MAJOR;
+                    lineLength = mLongLineLength;
+                    if (!mDrawLabels || i % mLabelStep != 0) break;
+                    int alpha = getLabelAlpha(i, fineLabelAlpha);
+                    if (alpha == 0) break;
+                    if (alpha != 255) mTextPaint.setAlpha(textAlpha * alpha / 255);
+                    int length = mScaleModel.formatValue(i, mLabelBuffer);
+                    canvas.drawText(mLabelBuffer, 0, length, x, bottom, mTextPaint);
+                    if (alpha != 255) mTextPaint.setAlpha(textAlpha);
+                    labels++;
+                    break;
+                default:
+                    level = getTickLevel(i);
+                    lineLength = getTickLength(level);
+                    break;
+            }
+            if (mTickStyler != null) mTickSlots[k] = mTickStyler.getSlot(i, level);
+
+            /*startX*/
+            mLinesArr[k * 4] = x;
+            /*startY*/
+            mLinesArr[k * 4 + 1] = bottom - mTextPaint.getTextSize();
+            /*stopX*/
+            mLinesArr[k * 4 + 2] = x;
+            /*stopY*/
+            mLinesArr[k * 4 + 3] = bottom - (mTextPaint.getTextSize() + lineLength);
+        }
+
+        mVisibleLabelCount = labels;
+        if (!mDrawTicks) return;
+
+        //绘制线组，再加上高亮线
+        mDrawnTickCount = drawTickLines(canvas, count) + 1;
+
+//        //绘制当前选中的线条
+        float highlightX = (float) (shakeCenter + (snapPosition(mPosition) - position));
+        canvas.drawLine(highlightX,
+                (bottom - mTextPaint.getTextSize()),
+                highlightX,
+                (bottom - mTextPaint.getTextSize()) - getTickLength(getTickLevel(mCurrentLineIndex)),
+                mHighlightPaint);
+    }
+
+
+    /**
+     * 在两端盖上从背景色过渡到透明的渐变
+     * 每一帧只画两个矩形，和可见的刻度数量无关，刻度和文本的画笔不需要逐个修改透明度
+     *
+     * @param canvas 画布
+     */
+    private void drawEdgeFade(Canvas canvas) {
+        final boolean horizontal = mOrientation == HORIZONTAL;
+        final int length = horizontal ? getWidth() : getHeight();
+        if (length <= 0) return;
+        final float fade = Math.min(mEdgeFadeLength, length / 2f);
+        if (mEdgeFadeShader == null) {
+            //透明的一端保留背景色的rgb，过渡中间不会发灰
+            final int transparent = mBackgroundColor & 0x00FFFFFF;
+            final float stop = fade / length;
+            mEdgeFadeShader = new LinearGradient(0, 0, horizontal ? length : 0, horizontal ? 0 : length,
+                    new int[]{mBackgroundColor, transparent, transparent, mBackgroundColor},
+                    new float[]{0, stop, 1 - stop, 1}, Shader.TileMode.CLAMP);
+            mEdgeFadePaint.setShader(mEdgeFadeShader);
+        }
+        if (horizontal) {
+            canvas.drawRect(0, 0, fade, getHeight(), mEdgeFadePaint);
+            canvas.drawRect(length - fade, 0, length, getHeight(), mEdgeFadePaint);
+        } else {
+            canvas.drawRect(0, 0, getWidth(), fade, mEdgeFadePaint);
+            canvas.drawRect(0, length - fade, getWidth(), length, mEdgeFadePaint);
+        }
+    }
+
+    /**
+     * 绘制可见范围内的叠加标注
+     * 只查询可见范围内的标注，循环模式下再查询前后两圈，首尾相接处的标注也能显示
+     *
+     * @param canvas 画布
+     * @param bands  true 绘制区间标注，false 绘制单点标注和所有的文本
+     */
+    private void drawOverlays(Canvas canvas, boolean bands) {
+        if (mOverlays.getCount() == 0) return;
+        final int laps = mCircular ? 1 : 0;
+        final long period = mLines + 1L;
+        for (int lap = -laps; lap <= laps; lap++) {
+            double shift = (double) lap * period;
+            mOverlayHits = mOverlays.query(mFirstVisibleIndex - shift - 1, mLastVisibleIndex - shift + 1, mOverlayHits);
+            final int count = mOverlays.getQueryCount();
+            for (int k = 0; k < count; k++) {
+                int id = mOverlayHits[k];
+                boolean band = mOverlays.getType(id) == RulerOverlays.TYPE_BAND;
+                if (bands) {
+                    if (band) drawOverlayBand(canvas, id, shift);
+                } else {
+                    drawOverlayPoint(canvas, id, shift, !band);
+                }
+            }
+        }
+    }
+
+    /**
+     * 刻度下标对应的屏幕坐标，垂直方向上是y，水平方向上是x，下标可以是小数
+     */
+    private float indexToScreen(double index) {
+        final double offset = index * getSpacing() - getDrawPosition();
+        if (mOrientation == HORIZONTAL) return (float) ((getWidth() >> 1) + offset);
+        return (float) ((getHeight() >> 1) - offset);
+    }
+
+    private void drawOverlayBand(Canvas canvas, int id, double shift) {
+        final float start = indexToScreen(mOverlays.getStart(id) + shift);
+        final float end = indexToScreen(mOverlays.getEnd(id) + shift);
+        mOverlayPaint.setColor(mOverlays.getColor(id));
+        if (mOrientation == HORIZONTAL) {
+            float base = getHeight() - getPaddingBottom() - mTextPaint.getTextSize();
+            canvas.drawRect(start, base - mLongLineLength, end, base, mOverlayPaint);
+        } else {
+            float base = getPaddingLeft() + getMaxTextWidth();
+            canvas.drawRect(base, end, base + mLongLineLength, start, mOverlayPaint);
+        }
+    }
+
+    /**
+     * 绘制单点标注的圆点，以及标注的文本
+     * 区间标注的文本绘制在区间的中点
+     */
+    private void drawOverlayPoint(Canvas canvas, int id, double shift, boolean dot) {
+        final String label = mOverlays.getLabel(id);
+        if (!dot && label == null) return;
+        final float along = indexToScreen((mOverlays.getStart(id) + mOverlays.getEnd(id)) / 2 + shift);
+        final float radius = mShortLineLength / 4;
+        final int color = mOverlays.getColor(id);
+        float x, y;
+        if (mOrientation == HORIZONTAL) {
+            x = along;
+            y = getHeight() - getPaddingBottom() - mTextPaint.getTextSize() - mLongLineLength;
+        } else {
+            x = getPaddingLeft() + getMaxTextWidth() + mLongLineLength;
+            y = along;
+        }
+        if (dot) {
+            mOverlayPaint.setColor(color);
+            canvas.drawCircle(x, y, radius, mOverlayPaint);
+        }
+        if (label == null) return;
+        //文本不透明，区间的颜色通常是半透明的
+        mOverlayPaint.setColor(color | 0xFF000000);
+        mOverlayPaint.setTextSize(mTextSize * 0.8f);
+        if (mOrientation == HORIZONTAL) {
+            mOverlayPaint.setTextAlign(Paint.Align.CENTER);
+            canvas.drawText(label, x, y - radius * 2, mOverlayPaint);
+        } else {
+            mOverlayPaint.setTextAlign(Paint.Align.LEFT);
+            canvas.drawText(label, x + radius * 2, y + mOverlayPaint.getTextSize() / 3, mOverlayPaint);
+        }
+    }
+
+    /**
+     * 在标记物的另一侧绘制副刻度
+     * 副刻度的位置来自按照可见窗口计算的换算表，这里只需要把小数下标换算成屏幕坐标
+     *
+     * @param canvas 画布
+     */
+    private void drawSecondaryScale(Canvas canvas) {
+        final SecondaryScale secondary = mSecondaryScale;
+        final float spacing = getSpacing();
+        secondary.update(mScaleModel, mFirstVisibleIndex, mLastVisibleIndex, spacing, mMinTickSpacing);
+
+        final ScaleModel model = secondary.getModel();
+        final int outSideLine = secondary.getOutSideLine();
+        final boolean horizontal = mOrientation == HORIZONTAL;
+        final float base = getSecondaryBase();
+        final float maxTextWidth = horizontal ? 0 : secondary.getMaxTextWidth(mTextPaint, mLabelBuffer);
+        final int center = (horizontal ? getWidth() : getHeight()) >> 1;
+        final double position = getDrawPosition();
+        final int size = secondary.getTableSize();
+        ensureLinesArr(size);
+
+        int count = 0;
+        for (int k = 0; k < size; k++) {
+            double fraction = secondary.getTableFraction(k);
+            if (fraction < mFirstVisibleIndex || fraction > mLastVisibleIndex) continue;
+            int j = secondary.getTableIndex(k);
+            float along = (float) (fraction * spacing - position);
+            float lineLength = mShortLineLength;
+            if (j % outSideLine == 0) {
+                lineLength = mLongLineLength;
+                if (mDrawLabels) {
+                    int length = model.formatValue(j, mLabelBuffer);
+                    if (horizontal) {
+                        canvas.drawText(mLabelBuffer, 0, length, center + along, base, mTextPaint);
+                    } else {
+                        canvas.drawText(mLabelBuffer, 0, length, base + maxTextWidth / 2, center - along, mTextPaint);
+                    }
+                }
+            }
+            if (horizontal) {
+                mLinesArr[count * 4] = center + along;
+                mLinesArr[count * 4 + 1] = base;
+                mLinesArr[count * 4 + 2] = center + along;
+                mLinesArr[count * 4 + 3] = base + lineLength;
+            } else {
+                mLinesArr[count * 4] = base;
+                mLinesArr[count * 4 + 1] = center - along;
+                mLinesArr[count * 4 + 2] = base - lineLength;
+                mLinesArr[count * 4 + 3] = center - along;
+            }
+            count++;
+        }
+        if (mDrawTicks) canvas.drawLines(mLinesArr, 0, count * 4, mPaint);
+    }
+
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mAttached = true;
+        updateSuspended();
+        WindowManager wm = (WindowManager) getContext().getSystemService(Context.WINDOW_SERVICE);
+        float refreshRate = wm.getDefaultDisplay().getRefreshRate();
+        if (refreshRate > 0) mFrameIntervalMs = Math.max(1, Math.round(1000 / refreshRate));
+        updatePowerSaveReceiver();
+        syncMetricsFrameInterval();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mAttached = false;
+        updateSuspended();
+        unregisterPowerSaveReceiver();
+    }
+
+    /**
+     * 需要时注册省电模式的监听，不需要时注销
+     */
+    private void updatePowerSaveReceiver() {
+        if (mPowerSaveFrameRate > 0 && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP
+                && ViewCompat.isAttachedToWindow(this)) {
+            registerPowerSaveReceiver();
+        } else {
+            unregisterPowerSaveReceiver();
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private void registerPowerSaveReceiver() {
+        final PowerManager pm = (PowerManager) getContext().getSystemService(Context.POWER_SERVICE);
+        if (mPowerSaveReceiver == null) {
+            mPowerSaveReceiver = new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context context, Intent intent) {
+                    setPowerSaveMode(pm.isPowerSaveMode());
+                }
+            };
+            getContext().registerReceiver(mPowerSaveReceiver, new IntentFilter(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED));
+        }
+        setPowerSaveMode(pm.isPowerSaveMode());
+    }
+
+    private void unregisterPowerSaveReceiver() {
+        if (mPowerSaveReceiver != null) {
+            getContext().unregisterReceiver(mPowerSaveReceiver);
+            mPowerSaveReceiver = null;
+        }
+        setPowerSaveMode(false);
+    }
+
+    private void setPowerSaveMode(boolean powerSaveMode) {
+        if (mPowerSaveMode == powerSaveMode) return;
+        mPowerSaveMode = powerSaveMode;
+        syncMetricsFrameInterval();
+    }
+
+    /**
+     * 保存选中的刻度、内部生成的线性刻度的参数、循环模式和缩放比例
+     * 正在fling或者吸附时保存最终会停下的刻度，恢复后直接停在那里；控件需要设置id才会保存
+     */
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        SavedState state = new SavedState(super.onSaveInstanceState());
+        double position = mPosition;
+        if (!mOverScroller.isFinished()) position = mScrollAnchor + mOverScroller.getFinalX();
+        state.currentLineIndex = isAnimating() || mDragDetector.isDragging()
+                ? positionToIndex(getSettlePosition(position)) : mCurrentLineIndex;
+        state.internalModel = mInternalScaleModel;
+        state.lines = mLines;
+        state.startLineValue = mStartLineValue;
+        state.setupValue = mSetupValue;
+        state.circular = mCircular;
+        state.zoom = mZoom;
+        return state;
+    }
+
+    /**
+     * 恢复保存的状态
+     * 和 {@link #bind(RulerState)} 一样直接停在保存的刻度上，不会产生滚动动画，也不会回调监听器；
+     * 位置和控件的尺寸无关，第一次布局和绘制就在保存的位置上。
+     * 应用通过 {@link #setScaleModel(ScaleModel)} 设置的模型不会被保存，恢复时也不会被替换，
+     * 需要应用在恢复之前(比如 onCreate 中)重新设置
+     */
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        SavedState savedState = (SavedState) state;
+        super.onRestoreInstanceState(savedState.getSuperState());
+
+        if (!mOverScroller.isFinished()) mOverScroller.abortAnimation();
+        mPreviousIsFling = false;
+        mMagnetPending = false;
+        mPredictionOffset = 0;
+        //应用已经重新设置了自己的模型时保留它
+        if (savedState.internalModel && mInternalScaleModel) {
+            mLines = savedState.lines;
+            mStartLineValue = savedState.startLineValue;
+            mSetupValue = savedState.setupValue;
+            rebuildLinearScaleModel();
+        }
+        mCircular = savedState.circular;
+        mZoom = Math.max(mMinZoom, Math.min(mMaxZoom, savedState.zoom));
+        mCurrentLineIndex = Math.max(0, Math.min(mLines, savedState.currentLineIndex));
+        mPosition = indexToPosition(mCurrentLineIndex);
+        requestRulerLayout();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        mEdgeFadeShader = null;
+        adjustMarker(true);
+    }
+
+    /**
+     * 应用样式中的属性
+     *
+     * @param style   样式
+     * @param initial 是否是创建控件时的初始样式，只有初始样式才会设置刻度数量、起始值等初始状态
+     */
+    private void applyStyle(RulerStyle style, boolean initial) {
+        mOrientation = style.getOrientation();
+        mDragDetector.setOrientation(mOrientation);
+        mBackgroundColor = style.getBackgroundColor();
+        mEdgeFadeShader = null;
+
+        mTextColor = style.getTextColor();
+        mTextPaint.setColor(mTextColor);
+        mTextSize = style.getTextSize();
+        mTextPaint.setTextSize(mTextSize);
+
+        mHighLightColor = style.getHighlightColor();
+        mHighlightPaint.setColor(mHighLightColor);
+        mHighlightWidth = style.getHighlightWidth();
+        mHighlightPaint.setStrokeWidth(mHighlightWidth);
+
+        mMarkerColor = style.getMarkerColor();
+        mMarkerPaint.setColor(mMarkerColor);
+        mMarkerWidth = style.getMarkerWidth();
+        mMarkerSpace = style.getMarkerSpace();
+
+        mLineColor = style.getLineColor();
+        mPaint.setColor(mLineColor);
+        mLineWidth = style.getLineWidth();
+        mPaint.setStrokeWidth(mLineWidth);
+        mShortLineLength = style.getShortLineLength();
+        mMidLineLength = style.getMidLineLength();
+        mLongLineLength = style.getLongLineLength();
+
+        space = style.getSpace();
+        ratio = style.getRatio();
+
+        if (initial) {
+            mLines = style.getLines();
+            mStartLineValue = style.getStartLineValue();
+            mCircular = style.isCircular();
+            mZoomEnabled = style.isZoomEnabled();
+            //设置标记物会计算重绘区域，刻度模型需要先准备好
+            rebuildLinearScaleModel();
+            if (style.getMarkerDrawableRes() != 0) {
+                setMarkerDrawable(ContextCompat.getDrawable(getContext(), style.getMarkerDrawableRes()));
+            }
+        }
+    }
+
+    /**
+     * 切换样式
+     * 样式是不可变的，可以在多个控件之间共享；切换时只修改外观，刻度数量、当前选中的刻度等状态保持不变
+     *
+     * @param style 新的样式
+     */
+    public void setStyle(RulerStyle style) {
+        if (style == null) throw new IllegalArgumentException("style == null");
+        final int index = mCurrentLineIndex;
+        applyStyle(style, false);
+        //间距可能变化，保持选中的刻度不变
+        mPosition = indexToPosition(index);
+        mMaxTextWidth = -1;
+        requestRulerLayout();
+    }
+
+    /**
+     * 绑定新的数据，用于在 RecyclerView 这类列表中复用控件
+     * 刻度范围、选中的刻度和样式一次性切换，不会回调监听器；
+     * 只有在测量的尺寸真正变化时才重新布局，否则只重绘，内部的缓冲区和缓存都会继续复用。
+     * 位置和控件的尺寸无关，还没有布局的控件也可以直接绑定。
+     * 刻度模型由状态决定：状态中有刻度模型时使用它，否则按照状态中的整数参数生成线性刻度，
+     * 之前通过 {@link #setScaleModel(ScaleModel)} 设置的模型会被替换，使用自定义模型的行需要把模型放在状态中
+     *
+     * @param state 需要绑定的数据
+     */
+    public void bind(RulerState state) {
+        if (state == null) throw new IllegalArgumentException("state == null");
+        if (!mOverScroller.isFinished()) mOverScroller.abortAnimation();
+        mDragDetector.cancel();
+        mPreviousIsFling = false;
+        mMagnetPending = false;
+        mPredictionOffset = 0;
+        if (mRenderQuality != QUALITY_FULL) applyRenderQuality(QUALITY_FULL);
+        if (mMetrics != null) mMetrics.onScrollerStateChanged(RulerMetrics.SCROLLER_IDLE);
+
+        final RulerStyle style = state.getStyle();
+        if (style != null) {
+            final float textSize = mTextSize;
+            applyStyle(style, false);
+            if (textSize != mTextSize) mMaxTextWidth = -1;
+        }
+        final ScaleModel scaleModel = state.getScaleModel();
+        if (scaleModel != null) {
+            if (scaleModel != mScaleModel) {
+                mScaleModel = scaleModel;
+                mMaxTextWidth = -1;
+            }
+            mInternalScaleModel = false;
+            mLines = scaleModel.getCount() - 1;
+        } else {
+            mLines = state.getLines();
+            mStartLineValue = state.getStartLineValue();
+            mSetupValue = state.getSetupValue();
+            rebuildLinearScaleModel();
+        }
+
+        mCurrentLineIndex = Math.max(0, Math.min(mLines, state.getCurrentLineIndex()));
+        mPosition = indexToPosition(mCurrentLineIndex);
+
+        if (mHasMeasured && (measureWidth(mWidthMeasureSpec) != getMeasuredWidth()
+                || measureHeight(mHeightMeasureSpec) != getMeasuredHeight())) {
+            requestRulerLayout();
+        } else {
+            invalidateRuler();
+        }
+    }
+
+    /**
+     * 获取当前外观的快照
+     * 包含通过单独的setter修改过的属性，标记物Drawable不包含在快照中
+     */
+    public RulerStyle getStyle() {
+        return new RulerStyle.Builder(getContext())
+                .setOrientation(mOrientation)
+                .setBackgroundColor(mBackgroundColor)
+                .setTextColor(mTextColor)
+                .setTextSize(mTextSize)
+                .setHighlightColor(mHighLightColor)
+                .setHighlightWidth(mHighlightWidth)
+                .setMarkerColor(mMarkerColor)
+                .setMarkerWidth(mMarkerWidth)
+                .setMarkerSpace(mMarkerSpace)
+                .setLineColor(mLineColor)
+                .setLineWidth(mLineWidth)
+                .setShortLineLength(mShortLineLength)
+                .setMidLineLength(mMidLineLength)
+                .setLongLineLength(mLongLineLength)
+                .setSpace(space)
+                .setRatio(ratio)
+                .setLines(mLines)
+                .setStartLineValue(mStartLineValue)
+                .setCircular(mCircular)
+                .setZoomEnabled(mZoomEnabled)
+                .build();
+    }
+
+    public int getLines() {
+        return mLines;
+    }
+
+    public void setLines(int mLines) {
+        if (mLines < 0) throw new IllegalArgumentException("lines must be >= 0");
+        this.mLines = mLines;
+        mPosition = limitPosition(mPosition);
+        rebuildLinearScaleModel();
+        requestRulerLayout();
+    }
+
+    public int getOutSideLine() {
+        return mOutSideLine;
+    }
+
+    public void setOutSideLine(int mOutSideLine) {
+        if (mOutSideLine <= 0) throw new IllegalArgumentException("outSideLine must be > 0");
+        this.mOutSideLine = mOutSideLine;
+        mMaxTextWidth = -1;
+        invalidateRegion(REGION_CONTENT);
+    }
+
+    public int getSetupValue() {
+        return mSetupValue;
+    }
+
+    public void setSetupValue(int mSetupValue) {
+        this.mSetupValue = mSetupValue;
+        rebuildLinearScaleModel();
+        invalidateRegion(REGION_LABELS);
+    }
+
+    public int getCurrentLineIndex() {
+        return mCurrentLineIndex;
+    }
+
+    public void setCurrentLineIndex(int currentLineIndex) {
+        if (mOverScroller != null && !mOverScroller.isFinished()) mOverScroller.abortAnimation();
+        //位置和控件的尺寸无关，布局之前也可以直接设置
+        mPosition = indexToPosition(Math.max(0, Math.min(mLines, currentLineIndex)));
+        mPredictionOffset = 0;
+        adjustMarker(true);
+        invalidateRegion(REGION_CONTENT);
+    }
+
+    public int getSpace() {
         return space;
     }
 
-    public void setSpace(int space) {
-        this.space = space;
-        requestLayout();
+    public void setSpace(int space) {
+        if (space <= 0) throw new IllegalArgumentException("space must be > 0");
+        this.space = space;
+        //保持选中的刻度不变
+        mPosition = indexToPosition(mCurrentLineIndex);
+        requestRulerLayout();
+    }
+
+    public float getShortLineLength() {
+        return mShortLineLength;
+    }
+
+    public void setShortLineLength(float mShortLineLength) {
+        this.mShortLineLength = mShortLineLength;
+        invalidateRegion(REGION_TICKS);
+    }
+
+    /**
+     * 获取中线的长度，没有单独设置时和短线一样长
+     */
+    public float getMidLineLength() {
+        return mMidLineLength > 0 ? mMidLineLength : mShortLineLength;
+    }
+
+    /**
+     * 设置中线的长度
+     *
+     * @param midLineLength 中线的长度，0 表示和短线一样长
+     */
+    public void setMidLineLength(float midLineLength) {
+        if (midLineLength < 0) throw new IllegalArgumentException("midLineLength must be >= 0");
+        this.mMidLineLength = midLineLength;
+        invalidateRegion(REGION_TICKS);
+    }
+
+    public int getMidLineInterval() {
+        return mMidLineInterval;
+    }
+
+    /**
+     * 设置每隔多少个刻度画一根中线
+     *
+     * @param midLineInterval 间隔，0 表示没有中线
+     */
+    public void setMidLineInterval(int midLineInterval) {
+        if (midLineInterval < 0) throw new IllegalArgumentException("midLineInterval must be >= 0");
+        this.mMidLineInterval = midLineInterval;
+        invalidateRegion(REGION_TICKS);
+    }
+
+    public TickStyler getTickStyler() {
+        return mTickStyler;
+    }
+
+    /**
+     * 设置刻度的样式规则
+     * 规则依赖的数据变化后需要调用 {@link #invalidate()} 重绘；规则提供的画笔不受自适应画质影响
+     *
+     * @param tickStyler 样式规则，null 表示所有的刻度使用同一个画笔
+     */
+    public void setTickStyler(TickStyler tickStyler) {
+        this.mTickStyler = tickStyler;
+        invalidateRegion(REGION_TICKS);
+    }
+
+    public float getLongLineLength() {
+        return mLongLineLength;
+    }
+
+    public void setLongLineLength(float mLongLineLength) {
+        this.mLongLineLength = mLongLineLength;
+        invalidateRuler();
+    }
+
+    public int getHighLightColor() {
+        return mHighLightColor;
+    }
+
+    public void setHighLightColor(int highLightColor) {
+        this.mHighLightColor = highLightColor;
+        mHighlightPaint.setColor(highLightColor);
+        invalidateRegion(REGION_HIGHLIGHT);
+    }
+
+    public int getTextColor() {
+        return mTextColor;
+    }
+
+    public void setTextColor(int textColor) {
+        this.mTextColor = textColor;
+        mTextPaint.setColor(textColor);
+        invalidateRegion(REGION_LABELS);
+    }
+
+    public float getTextSize() {
+        return mTextSize;
+    }
+
+    public void setTextSize(float textSize) {
+        this.mTextSize = textSize;
+        mTextPaint.setTextSize(textSize);
+        mMaxTextWidth = -1;
+        requestRulerLayout();
+    }
+
+    public float getHighlightWidth() {
+        return mHighlightWidth;
+    }
+
+    public void setHighlightWidth(float highlightWidth) {
+        this.mHighlightWidth = highlightWidth;
+        mHighlightPaint.setStrokeWidth(highlightWidth);
+        requestRulerLayout();
+    }
+
+    public float getLineWidth() {
+        return mLineWidth;
+    }
+
+    public void setLineWidth(float lineWidth) {
+        this.mLineWidth = lineWidth;
+        mPaint.setStrokeWidth(lineWidth);
+        requestRulerLayout();
+    }
+
+    public int getLineColor() {
+        return mLineColor;
+    }
+
+    public void setLineColor(int lineColor) {
+        this.mLineColor = lineColor;
+        mPaint.setColor(lineColor);
+        invalidateRegion(REGION_TICKS);
+    }
+
+
+    public int getStartLineValue() {
+        return mStartLineValue;
+    }
+
+    public void setStartLineValue(int startLineValue) {
+        this.mStartLineValue = startLineValue;
+        rebuildLinearScaleModel();
+        requestRulerLayout();
+    }
+
+    public ScaleModel getScaleModel() {
+        return mScaleModel;
+    }
+
+    /**
+     * 设置刻度模型
+     * 刻度的数量由模型决定，之后再调用 {@link #setLines(int)}、{@link #setStartLineValue(int)}、
+     * {@link #setSetupValue(int)} 会重新换回线性刻度
+     *
+     * @param scaleModel 刻度模型
+     */
+    public void setScaleModel(ScaleModel scaleModel) {
+        if (scaleModel == null) throw new IllegalArgumentException("scaleModel must not be null");
+        this.mScaleModel = scaleModel;
+        mInternalScaleModel = false;
+        this.mLines = scaleModel.getCount() - 1;
+        mMaxTextWidth = -1;
+        if (mCurrentLineIndex > mLines) mCurrentLineIndex = mLines;
+        mPosition = limitPosition(mPosition);
+        requestRulerLayout();
+    }
+
+    /**
+     * 按照整数参数重新生成线性刻度
+     */
+    private void rebuildLinearScaleModel() {
+        //参数没有变化时保留原来的模型和文本宽度的缓存
+        if (mInternalScaleModel) {
+            LinearScaleModel model = (LinearScaleModel) mScaleModel;
+            if (model.getStart() == mStartLineValue && model.getStep() == mSetupValue
+                    && model.getCount() == mLines + 1) {
+                return;
+            }
+        }
+        mScaleModel = new LinearScaleModel(mStartLineValue, mSetupValue, mLines + 1, 0);
+        mInternalScaleModel = true;
+        mMaxTextWidth = -1;
+    }
+
+    /**
+     * 获取最宽的刻度文本的宽度
+     * 由刻度模型测量，结果缓存到刻度模型或者文字大小变化为止
+     */
+    private float getMaxTextWidth() {
+        if (mMaxTextWidth < 0) {
+            mMaxTextWidth = mScaleModel.measureMaxLabelWidth(mTextPaint, mLabelBuffer, mOutSideLine);
+        }
+        return mMaxTextWidth;
     }
 
-    public float getShortLineLength() {
-        return mShortLineLength;
+    /**
+     * 获取当前选中的值
+     */
+    public double getCurrentValue() {
+        return mScaleModel.getValue(mCurrentLineIndex);
     }
 
-    public void setShortLineLength(float mShortLineLength) {
-        this.mShortLineLength = mShortLineLength;
-        invalidate();
+    /**
+     * 选中和指定值最接近的刻度
+     *
+     * @param value 需要选中的值
+     */
+    public void setCurrentValue(double value) {
+        setCurrentLineIndex(mScaleModel.indexOf(value));
     }
 
-    public float getLongLineLength() {
-        return mLongLineLength;
+    public int getMaxFrameRate() {
+        return mMaxFrameRate;
     }
 
-    public void setLongLineLength(float mLongLineLength) {
-        this.mLongLineLength = mLongLineLength;
-        invalidate();
+    /**
+     * 设置滚动动画(fling和吸附)的最大帧率
+     * 适合更关心功耗的设备，比如 30 表示最多每秒推进30次，运动的轨迹和时长不变
+     *
+     * @param maxFrameRate 最大帧率，0 表示不限制
+     */
+    public void setMaxFrameRate(int maxFrameRate) {
+        if (maxFrameRate < 0) throw new IllegalArgumentException("maxFrameRate must be >= 0");
+        this.mMaxFrameRate = maxFrameRate;
+        syncMetricsFrameInterval();
     }
 
-    public int getHighLightColor() {
-        return mHighLightColor;
+    public int getPowerSaveFrameRate() {
+        return mPowerSaveFrameRate;
     }
 
-    public void setHighLightColor(int highLightColor) {
-        this.mHighLightColor = highLightColor;
-        mHighlightPaint.setColor(highLightColor);
-        invalidate();
+    /**
+     * 设置系统处于省电模式时滚动动画的最大帧率
+     * 控件在窗口中时会监听系统省电模式的变化，随时切换，需要 Android 5.0 以上
+     *
+     * @param powerSaveFrameRate 最大帧率，0 表示省电模式下也不限制
+     */
+    public void setPowerSaveFrameRate(int powerSaveFrameRate) {
+        if (powerSaveFrameRate < 0) throw new IllegalArgumentException("powerSaveFrameRate must be >= 0");
+        this.mPowerSaveFrameRate = powerSaveFrameRate;
+        updatePowerSaveReceiver();
+        syncMetricsFrameInterval();
     }
 
-    public int getTextColor() {
-        return mTextColor;
+    public boolean isAdaptiveQuality() {
+        return mAdaptiveQuality;
     }
 
-    public void setTextColor(int textColor) {
-        this.mTextColor = textColor;
-        mTextPaint.setColor(textColor);
-        invalidate();
+    /**
+     * 设置是否根据滚动速度自动调整绘制质量
+     * 快速fling时看不清的细节会被省掉：超过 {@link #setQualityThresholds(float, float)} 的第一个速度时关闭抗锯齿，
+     * 超过第二个速度时只绘制粗一级的文本，速度降下来后恢复，跳过的文本会淡入
+     *
+     * @param adaptiveQuality true 开启
+     */
+    public void setAdaptiveQuality(boolean adaptiveQuality) {
+        this.mAdaptiveQuality = adaptiveQuality;
+        if (!adaptiveQuality) {
+            applyRenderQuality(QUALITY_FULL);
+            mLabelFadeStartTime = -1;
+        }
     }
 
-    public float getTextSize() {
-        return mTextSize;
+    /**
+     * 设置调整绘制质量的速度阈值
+     *
+     * @param reducedVelocity 关闭抗锯齿的速度，单位 px/s
+     * @param minimalVelocity 只绘制粗一级文本的速度，单位 px/s，不能小于 reducedVelocity
+     */
+    public void setQualityThresholds(float reducedVelocity, float minimalVelocity) {
+        if (reducedVelocity < 0 || minimalVelocity < reducedVelocity) {
+            throw new IllegalArgumentException("invalid quality thresholds " + reducedVelocity + ", " + minimalVelocity);
+        }
+        this.mReducedQualityVelocity = reducedVelocity;
+        this.mMinimalQualityVelocity = minimalVelocity;
     }
 
-    public void setTextSize(float textSize) {
-        this.mTextSize = textSize;
-        mTextPaint.setTextSize(textSize);
-        requestLayout();
+    /**
+     * 获取当前的绘制质量
+     *
+     * @return {@link #QUALITY_FULL}、{@link #QUALITY_REDUCED} 或者 {@link #QUALITY_MINIMAL}
+     */
+    public int getRenderQuality() {
+        return mRenderQuality;
     }
 
-    public float getHighlightWidth() {
-        return mHighlightWidth;
+    public boolean isZoomEnabled() {
+        return mZoomEnabled;
     }
 
-    public void setHighlightWidth(float highlightWidth) {
-        this.mHighlightWidth = highlightWidth;
-        mHighlightPaint.setStrokeWidth(highlightWidth);
-        requestLayout();
+    /**
+     * 设置是否允许双指缩放刻度间距
+     * 缩放只改变绘制的间距，不会重新布局，间距变小时会按照细节层次跳过一部分刻度和文本
+     *
+     * @param zoomEnabled true 允许
+     */
+    public void setZoomEnabled(boolean zoomEnabled) {
+        this.mZoomEnabled = zoomEnabled;
     }
 
-    public float getLineWidth() {
-        return mLineWidth;
+    public float getZoom() {
+        return mZoom;
     }
 
-    public void setLineWidth(float lineWidth) {
-        this.mLineWidth = lineWidth;
-        mPaint.setStrokeWidth(lineWidth);
-        requestLayout();
+    /**
+     * 设置缩放比例
+     * 以marker为中心缩放，选中的刻度不变
+     *
+     * @param zoom 缩放比例，会被限制在 {@link #setZoomRange(float, float)} 的范围内
+     */
+    public void setZoom(float zoom) {
+        if (!mOverScroller.isFinished()) mOverScroller.abortAnimation();
+        mPreviousIsFling = false;
+        applyZoom(zoom);
+        adjustMarker(true);
     }
 
-    public int getLineColor() {
-        return mLineColor;
+    /**
+     * 设置缩放比例的范围
+     *
+     * @param minZoom 最小缩放比例
+     * @param maxZoom 最大缩放比例
+     */
+    public void setZoomRange(float minZoom, float maxZoom) {
+        if (minZoom <= 0 || minZoom > maxZoom) {
+            throw new IllegalArgumentException("invalid zoom range [" + minZoom + ", " + maxZoom + "]");
+        }
+        this.mMinZoom = minZoom;
+        this.mMaxZoom = maxZoom;
+        if (mZoom < minZoom || mZoom > maxZoom) setZoom(mZoom);
     }
 
-    public void setLineColor(int lineColor) {
-        this.mLineColor = lineColor;
-        mPaint.setColor(lineColor);
-        invalidate();
+    public float getMinZoom() {
+        return mMinZoom;
     }
 
+    public float getMaxZoom() {
+        return mMaxZoom;
+    }
 
-    public int getStartLineValue() {
-        return mStartLineValue;
+    /**
+     * 修改缩放比例，位置按照比例换算，保持marker下的值不变
+     */
+    private void applyZoom(float zoom) {
+        zoom = Math.max(mMinZoom, Math.min(mMaxZoom, zoom));
+        if (zoom == mZoom) return;
+        mPosition = mPosition * zoom / mZoom;
+        mZoom = zoom;
+        postInvalidateRegionOnAnimation(REGION_CONTENT);
     }
 
-    public void setStartLineValue(int startLineValue) {
-        this.mStartLineValue = startLineValue;
-        requestLayout();
+    public boolean isCircular() {
+        return mCircular;
+    }
+
+    /**
+     * 设置是否是循环模式
+     * 循环模式下刻度首尾相连，可以无限地拖动和fling，适合角度、时间这类周期性的值
+     * 刻度数量(mLines + 1)最好是 {@link #getOutSideLine()} 的整数倍，首尾相接处的长线间隔才会一致
+     *
+     * @param circular true 循环
+     */
+    public void setCircular(boolean circular) {
+        if (mCircular == circular) return;
+        this.mCircular = circular;
+        if (!mOverScroller.isFinished()) mOverScroller.abortAnimation();
+        mPosition = limitPosition(mPosition);
+        adjustMarker(true);
+        invalidateRegion(REGION_CONTENT);
     }
 
     public int getOrientation() {
@@ -813,8 +2784,13 @@ public class HeightView extends View {
     }
 
     public void setOrientation(int orientation) {
+        if (orientation != HORIZONTAL && orientation != VERTICAL) {
+            throw new IllegalArgumentException("unknown orientation " + orientation);
+        }
         this.mOrientation = orientation;
-        requestLayout();
+        mDragDetector.setOrientation(orientation);
+        mEdgeFadeShader = null;
+        requestRulerLayout();
     }
 
     public int getMarkerWidth() {
@@ -822,8 +2798,9 @@ public class HeightView extends View {
     }
 
     public void setMarkerWidth(int markerWidth) {
+        if (markerWidth < 0) throw new IllegalArgumentException("markerWidth must be >= 0");
         this.mMarkerWidth = markerWidth;
-        requestLayout();
+        requestRulerLayout();
     }
 
     public int getMarkerSpace() {
@@ -832,7 +2809,34 @@ public class HeightView extends View {
 
     public void setMarkerSpace(int markerSpace) {
         this.mMarkerSpace = markerSpace;
-        requestLayout();
+        requestRulerLayout();
+    }
+
+    public Drawable getMarkerDrawable() {
+        return mMarkerDrawable;
+    }
+
+    /**
+     * 设置自定义的标记物
+     * 标记物绘制在三角形所在的范围内，大小由 {@link #setMarkerWidth(int)} 决定，
+     * 标记物自身的动画或者状态变化只请求重绘标记物所在的区域，这只对软件绘制有效；
+     * 硬件加速时每一帧动画都会重新执行完整的 onDraw，应该避免使用一直在播放的动画
+     *
+     * @param drawable 标记物，null 表示使用默认的三角形
+     */
+    public void setMarkerDrawable(Drawable drawable) {
+        if (mMarkerDrawable == drawable) return;
+        if (mMarkerDrawable != null) {
+            mMarkerDrawable.setCallback(null);
+            unscheduleDrawable(mMarkerDrawable);
+        }
+        mMarkerDrawable = drawable;
+        if (drawable != null) {
+            drawable.setCallback(this);
+            if (drawable.isStateful()) drawable.setState(getDrawableState());
+            drawable.setVisible(isShown(), false);
+        }
+        invalidateRegion(REGION_MARKER);
     }
 
     public int getBackgroundColor() {
@@ -841,7 +2845,26 @@ public class HeightView extends View {
 
     public void setBackgroundColor(int backgroundColor) {
         this.mBackgroundColor = backgroundColor;
-        invalidate();
+        mEdgeFadeShader = null;
+        invalidateRuler();
+    }
+
+    public int getEdgeFadeLength() {
+        return mEdgeFadeLength;
+    }
+
+    /**
+     * 设置两端淡出的长度
+     * 刻度、文本和标注在两端逐渐淡出到背景色，标记物不受影响；需要不透明的背景色
+     *
+     * @param edgeFadeLength 淡出的长度，单位像素，0 表示不淡出
+     */
+    public void setEdgeFadeLength(int edgeFadeLength) {
+        if (edgeFadeLength < 0) throw new IllegalArgumentException("edgeFadeLength must be >= 0");
+        if (mEdgeFadeLength == edgeFadeLength) return;
+        this.mEdgeFadeLength = edgeFadeLength;
+        mEdgeFadeShader = null;
+        invalidateRuler();
     }
 
     public int getMarkerColor() {
@@ -851,7 +2874,7 @@ public class HeightView extends View {
     public void setMarkerColor(int markerColor) {
         this.mMarkerColor = markerColor;
         mMarkerPaint.setColor(markerColor);
-        invalidate();
+        invalidateRegion(REGION_MARKER);
     }
 
     public float getRatio() {
@@ -867,6 +2890,136 @@ public class HeightView extends View {
         this.ratio = ratio;
     }
 
+    /**
+     * 设置是否开启运行时性能统计
+     * 关闭时不会产生任何统计开销
+     *
+     * @param enabled true 开启
+     */
+    public void setMetricsEnabled(boolean enabled) {
+        if (enabled) {
+            if (mMetrics == null) {
+                mMetrics = new RulerMetrics();
+                syncMetricsFrameInterval();
+            }
+        } else {
+            mMetrics = null;
+        }
+    }
+
+    /**
+     * 获取运行时性能统计
+     *
+     * @return 没有开启 {@link #setMetricsEnabled(boolean)} 时返回null
+     */
+    public RulerMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    public int getVelocityStrategy() {
+        return mDragDetector.getVelocityStrategy();
+    }
+
+    /**
+     * 设置fling速度的估算方式
+     *
+     * @param strategy {@link DragDetector#VELOCITY_LSQ2} 或者 {@link DragDetector#VELOCITY_IMPULSE}
+     */
+    public void setVelocityStrategy(int strategy) {
+        mDragDetector.setVelocityStrategy(strategy);
+    }
+
+    public boolean isTouchPrediction() {
+        return mTouchPrediction;
+    }
+
+    /**
+     * 设置是否开启触摸预测
+     * 开启后拖动时会根据手指速度把刻度提前移动到下一次vsync时手指预计的位置，
+     * 在高刷新率的屏幕上跟手更紧，手指抬起时预测的位移会被去掉
+     *
+     * @param touchPrediction true 开启
+     */
+    public void setTouchPrediction(boolean touchPrediction) {
+        this.mTouchPrediction = touchPrediction;
+    }
+
+    /**
+     * 设置触摸事件记录器
+     * 设置后控件收到的所有触摸事件都会被记录下来，可以用 {@link TouchReplayer} 回放
+     *
+     * @param recorder 记录器，null 表示停止记录
+     */
+    public void setTouchRecorder(TouchRecorder recorder) {
+        this.mTouchRecorder = recorder;
+    }
+
+    public TouchRecorder getTouchRecorder() {
+        return mTouchRecorder;
+    }
+
+    public int getSuspendMode() {
+        return mSuspendMode;
+    }
+
+    /**
+     * 设置控件被隐藏或者离开窗口时对滚动动画的处理方式
+     * 两种方式在挂起期间都不会占用CPU，选中的刻度变化时照常回调
+     *
+     * @param suspendMode {@link #SUSPEND_FAST_FORWARD} 或者 {@link #SUSPEND_PAUSE}
+     */
+    public void setSuspendMode(int suspendMode) {
+        if (suspendMode != SUSPEND_FAST_FORWARD && suspendMode != SUSPEND_PAUSE) {
+            throw new IllegalArgumentException("unknown suspend mode " + suspendMode);
+        }
+        this.mSuspendMode = suspendMode;
+    }
+
+    /**
+     * 设置滚动动画使用的时钟
+     *
+     * @param clock 时钟，null 表示使用系统的动画时钟
+     */
+    public void setAnimationClock(AnimationClock clock) {
+        mAnimationClock = clock == null ? AnimationClock.SYSTEM : clock;
+        updateScrollerClock();
+    }
+
+    public RulerAnimationScheduler getAnimationScheduler() {
+        return mAnimationScheduler;
+    }
+
+    /**
+     * 设置共享的动画调度器
+     * 同一个屏幕上有很多刻度尺时，由调度器在同一个帧回调中推进所有正在滚动的刻度尺，
+     * 代替每个刻度尺各自的重绘循环。设置了自定义的时钟时(比如回放手势)暂时不使用调度器
+     *
+     * @param scheduler 调度器，通常是 {@link RulerAnimationScheduler#getInstance()}，null 表示使用自己的重绘循环
+     */
+    public void setAnimationScheduler(RulerAnimationScheduler scheduler) {
+        if (mAnimationScheduler == scheduler) return;
+        if (mAnimationScheduler != null) mAnimationScheduler.remove(this);
+        mAnimationScheduler = scheduler;
+        mLastFramePosition = Double.NaN;
+        updateScrollerClock();
+        //切换时钟后正在进行的动画的起始时间不再可信，直接吸附到最近的刻度
+        if (!mOverScroller.isFinished()) {
+            mOverScroller.abortAnimation();
+            adjustMarker(true);
+        }
+    }
+
+    /**
+     * 是否由共享的调度器推进动画
+     */
+    private boolean isSharedAnimation() {
+        return mAnimationScheduler != null && mAnimationClock == AnimationClock.SYSTEM;
+    }
+
+    private void updateScrollerClock() {
+        mScrollerClock.setSource(isSharedAnimation() ? mAnimationScheduler : mAnimationClock);
+    }
+
     /**
      * 设置item变化监听器
      *
@@ -877,6 +3030,117 @@ public class HeightView extends View {
     }
 
 
+    /**
+     * 设置刻度值变化监听器
+     * 和 {@link OnItemChangedListener} 不同，回调的值是刻度模型中的原始值，可以是小数
+     *
+     * @param listener 需要设置的监听器
+     */
+    public void setOnScaleValueChangedListener(OnScaleValueChangedListener listener) {
+        this.mOnScaleValueChangedListener = listener;
+    }
+
+    /**
+     * 设置主副刻度值变化监听器
+     *
+     * @param listener 主副刻度值变化监听器
+     */
+    public void setOnDualValueChangedListener(OnDualValueChangedListener listener) {
+        this.mOnDualValueChangedListener = listener;
+    }
+
+    public RulerOverlays getOverlays() {
+        return mOverlays;
+    }
+
+    /**
+     * 设置叠加标注
+     * 标注修改后会自动重绘，一组标注同一时间只能设置给一个控件
+     *
+     * @param overlays 叠加标注，null 表示不显示标注
+     */
+    public void setOverlays(RulerOverlays overlays) {
+        if (mOverlays == overlays) return;
+        if (mOverlays != null) mOverlays.setHost(null);
+        mOverlays = overlays;
+        if (overlays != null) overlays.setHost(this);
+        invalidateRuler();
+    }
+
+    /**
+     * 标注发生了变化
+     */
+    void onOverlaysChanged() {
+        invalidateRegion(REGION_CONTENT);
+    }
+
+    public SnapPoints getSnapPoints() {
+        return mSnapPoints;
+    }
+
+    /**
+     * 设置磁性吸附点
+     * 手指抬起后的吸附和fling的落点在吸附范围内时会被拉向最近的吸附点，查找只是一次二分查找
+     *
+     * @param snapPoints 吸附点，null 表示只吸附到最近的刻度上
+     */
+    public void setSnapPoints(SnapPoints snapPoints) {
+        this.mSnapPoints = snapPoints;
+        if (snapPoints == null) mMagnetPending = false;
+    }
+
+    public SecondaryScale getSecondaryScale() {
+        return mSecondaryScale;
+    }
+
+    /**
+     * 设置副刻度
+     * 副刻度和主刻度共用同一个滚动位置，切换单位时不会改变选中的刻度；循环模式下不绘制副刻度
+     *
+     * @param secondaryScale 副刻度，null 表示不显示副刻度
+     */
+    public void setSecondaryScale(SecondaryScale secondaryScale) {
+        if (mSecondaryScale == secondaryScale) return;
+        if (secondaryScale != null) secondaryScale.invalidateTable();
+        this.mSecondaryScale = secondaryScale;
+        requestRulerLayout();
+    }
+
+    /**
+     * 获取当前选中的值换算成的副刻度的值，没有副刻度时返回主刻度的值
+     */
+    public double getCurrentSecondaryValue() {
+        double value = getCurrentValue();
+        return mSecondaryScale == null ? value : mSecondaryScale.convert(value);
+    }
+
+    /**
+     * 主副刻度值变化监听器
+     */
+    public interface OnDualValueChangedListener {
+        /**
+         * 当选中的刻度发生变化后调用
+         *
+         * @param index          当前选中的刻度下标
+         * @param value          主刻度的值
+         * @param secondaryValue 换算成的副刻度的值，没有副刻度时和主刻度的值相同
+         */
+        void onDualValueChanged(int index, double value, double secondaryValue);
+    }
+
+    /**
+     * 刻度值变化监听器
+     */
+    public interface OnScaleValueChangedListener {
+        /**
+         * 当选中的刻度发生变化后调用
+         *
+         * @param index 当前选中的刻度下标
+         * @param value 刻度模型中对应的值
+         */
+        void onScaleValueChanged(int index, double value);
+    }
+
     /**
      * 条目变化监听器
      */
@@ -885,9 +3149,70 @@ public class HeightView extends View {
          * 当条目发生变化后调用
          *
          * @param index 当前的选择中的条目的下表
-         * @param value 选择中的条目的值
+         * @param value 选择中的条目的值，刻度模型的值是小数时四舍五入
          */
         void onItemChanged(int index, int value);
     }
 
+    /**
+     * 保存的状态
+     * 只保存几个基本类型的值，样式和刻度模型由布局和应用重新创建
+     */
+    public static class SavedState extends BaseSavedState {
+
+        private static final int FLAG_INTERNAL_MODEL = 1;
+        private static final int FLAG_CIRCULAR = 1 << 1;
+
+        int currentLineIndex;
+        boolean internalModel;
+        int lines;
+        int startLineValue;
+        int setupValue;
+        boolean circular;
+        float zoom;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        private SavedState(Parcel in) {
+            super(in);
+            currentLineIndex = in.readInt();
+            int flags = in.readByte();
+            internalModel = (flags & FLAG_INTERNAL_MODEL) != 0;
+            circular = (flags & FLAG_CIRCULAR) != 0;
+            if (internalModel) {
+                lines = in.readInt();
+                startLineValue = in.readInt();
+                setupValue = in.readInt();
+            }
+            zoom = in.readFloat();
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeInt(currentLineIndex);
+            out.writeByte((byte) ((internalModel ? FLAG_INTERNAL_MODEL : 0) | (circular ? FLAG_CIRCULAR : 0)));
+            if (internalModel) {
+                out.writeInt(lines);
+                out.writeInt(startLineValue);
+                out.writeInt(setupValue);
+            }
+            out.writeFloat(zoom);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
+
 }
@@ -0,0 +1,62 @@
+package com.lovely3x.view;
+
+import android.graphics.Paint;
+
+/**
+ * 英制长度刻度
+ * 每个刻度是一英寸，文本显示为 5'7" 的形式
+ */
+public class ImperialLengthScaleModel extends LinearScaleModel {
+
+    /**
+     * @param startInches 第0个刻度的英寸数
+     * @param count       刻度的数量
+     */
+    public ImperialLengthScaleModel(int startInches, int count) {
+        super(startInches, 1, count, 0);
+    }
+
+    @Override
+    public int formatValue(int index, char[] buffer) {
+        long inches = Math.round(getValue(index));
+        int position = 0;
+        if (inches < 0) {
+            buffer[position++] = '-';
+            inches = -inches;
+        }
+        position += formatLong(inches / 12, buffer, position);
+        buffer[position++] = '\'';
+        position += formatLong(inches % 12, buffer, position);
+        buffer[position++] = '"';
+        return position;
+    }
+
+    /**
+     * 英寸部分不是单调的，5'11" 比 6'0" 宽；英尺部分最长的文本出现在两端，
+     * 所以测量两端的英尺数配上两位英寸数，再把数字换成最宽的数字
+     */
+    @Override
+    public float measureMaxLabelWidth(Paint paint, char[] buffer, int step) {
+        if (getClass() != ImperialLengthScaleModel.class) return super.measureMaxLabelWidth(paint, buffer, step);
+        final int last = getCount() - 1;
+        float first = measureWithWidestDigits(paint, buffer, formatWidestInches(0, buffer));
+        return Math.max(first, measureWithWidestDigits(paint, buffer, formatWidestInches(last - last % step, buffer)));
+    }
+
+    /**
+     * 把指定刻度所在的英尺数配上两位英寸数写入缓冲区
+     */
+    private int formatWidestInches(int index, char[] buffer) {
+        long inches = Math.round(getValue(index));
+        int position = 0;
+        if (inches < 0) {
+            buffer[position++] = '-';
+            inches = -inches;
+        }
+        position += formatLong(inches / 12, buffer, position);
+        buffer[position++] = '\'';
+        position += formatLong(10, buffer, position);
+        buffer[position++] = '"';
+        return position;
+    }
+}
@@ -0,0 +1,79 @@
+package com.lovely3x.view;
+
+import android.graphics.Paint;
+
+/**
+ * 线性刻度
+ * 值 = 起始值 + 下标 * 步进值，下标和值的互相换算都是 O(1)
+ * 比如 0.1kg 的步进可以使用 new LinearScaleModel(30, 0.1, 1201, 1)
+ */
+public class LinearScaleModel extends ScaleModel {
+
+    private final double mStart;
+    private final double mStep;
+    private final int mCount;
+    private final int mDecimals;
+
+    /**
+     * @param start    第0个刻度的值
+     * @param step     相邻两个刻度的差值，不能为0
+     * @param count    刻度的数量
+     * @param decimals 文本显示的小数位数
+     */
+    public LinearScaleModel(double start, double step, int count, int decimals) {
+        if (step == 0) throw new IllegalArgumentException("step must not be 0");
+        if (count <= 0) throw new IllegalArgumentException("count must be > 0");
+        if (decimals < 0 || decimals > 9) throw new IllegalArgumentException("decimals must be in [0, 9]");
+        this.mStart = start;
+        this.mStep = step;
+        this.mCount = count;
+        this.mDecimals = decimals;
+    }
+
+    public double getStart() {
+        return mStart;
+    }
+
+    public double getStep() {
+        return mStep;
+    }
+
+    public int getDecimals() {
+        return mDecimals;
+    }
+
+    @Override
+    public int getCount() {
+        return mCount;
+    }
+
+    @Override
+    public double getValue(int index) {
+        return mStart + index * mStep;
+    }
+
+    @Override
+    public int indexOf(double value) {
+        long index = Math.round((value - mStart) / mStep);
+        if (index < 0) return 0;
+        if (index >= mCount) return mCount - 1;
+        return (int) index;
+    }
+
+    @Override
+    public int formatValue(int index, char[] buffer) {
+        return formatDecimal(getValue(index), mDecimals, buffer, 0);
+    }
+
+    /**
+     * 值是单调的，位数最多的文本出现在两端，只需要测量两端并把数字换成最宽的数字
+     * 重写了文本格式的子类不能保证这一点，使用逐个测量的默认实现
+     */
+    @Override
+    public float measureMaxLabelWidth(Paint paint, char[] buffer, int step) {
+        if (getClass() != LinearScaleModel.class) return super.measureMaxLabelWidth(paint, buffer, step);
+        final int last = mCount - 1;
+        float first = measureWithWidestDigits(paint, buffer, formatValue(0, buffer));
+        return Math.max(first, measureWithWidestDigits(paint, buffer, formatValue(last - last % step, buffer)));
+    }
+}
@@ -0,0 +1,459 @@
+package com.lovely3x.view;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.support.v4.view.ViewCompat;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+import java.util.ArrayList;
+
+/**
+ * 组合刻度尺
+ * 在同一个View中并排绘制多条同一方向的刻度 {@link RulerTrack}，比如身高和体重、厘米和英寸，
+ * 代替叠放多个 {@link HeightView}：只有一个图层、只填充一次背景，
+ * 所有刻度的刻度线、高亮线和标记物按照画笔合并成一次绘制，每条刻度仍然独立地选择、滚动和回调
+ * <p>
+ * 外观使用和 {@link HeightView} 相同的属性和 {@link RulerStyle}，刻度数量、起始值这类属性由每条刻度的模型决定
+ */
+public class MultiRulerView extends View {
+
+    private final ArrayList<RulerTrack> mTracks = new ArrayList<>();
+
+    private int mOrientation;
+    private int mBackgroundColor;
+    private float mShortLineLength;
+    private float mLongLineLength;
+    private int mMarkerWidth;
+    private int mMarkerSpace;
+    private float mRatio;
+    /**
+     * 样式中的默认间距，添加刻度时传给刻度
+     */
+    private int mDefaultSpace = 1;
+
+    private Paint mPaint;
+    private Paint mTextPaint;
+    private Paint mHighlightPaint;
+    private Paint mMarkerPaint;
+
+    /**
+     * 所有刻度的刻度线，一次 drawLines 绘制
+     */
+    private float[] mLinesArr = new float[4];
+    /**
+     * 所有刻度的高亮线，一次 drawLines 绘制
+     */
+    private float[] mHighlightArr = new float[4];
+    /**
+     * 所有刻度的标记物，只在布局变化后重建
+     */
+    private final Path mMarkerPath = new Path();
+    private boolean mMarkerPathDirty = true;
+
+    private final char[] mLabelBuffer = new char[ScaleModel.MAX_LABEL_LENGTH];
+
+    private DragDetector mDragDetector;
+    /**
+     * 正在被拖动的刻度
+     */
+    private RulerTrack mActiveTrack;
+
+    public MultiRulerView(Context context) {
+        this(context, null);
+    }
+
+    public MultiRulerView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public MultiRulerView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init();
+        setStyle(RulerStyle.obtain(context, attrs, defStyleAttr));
+    }
+
+    /**
+     * 初始化所需条件
+     */
+    private void init() {
+        setLayerType(LAYER_TYPE_HARDWARE, null);
+
+        mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mPaint.setStyle(Paint.Style.STROKE);
+
+        mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mTextPaint.setStyle(Paint.Style.FILL);
+        mTextPaint.setTextAlign(Paint.Align.CENTER);
+
+        mHighlightPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mHighlightPaint.setStyle(Paint.Style.STROKE);
+
+        mMarkerPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mMarkerPaint.setStyle(Paint.Style.FILL);
+
+        mDragDetector = new DragDetector(getContext(), new DragDetector.Callback() {
+            @Override
+            public void onDown() {
+                if (mActiveTrack != null) mActiveTrack.stopScroll();
+            }
+
+            @Override
+            public void onDrag(float delta) {
+                if (mActiveTrack != null && mActiveTrack.performDrag(axisSign() * delta)) {
+                    ViewCompat.postInvalidateOnAnimation(MultiRulerView.this);
+                }
+            }
+
+            @Override
+            public void onRelease(float velocity) {
+                if (mActiveTrack == null) return;
+                if (velocity != 0) {
+                    mActiveTrack.fling((int) (axisSign() * velocity / mRatio));
+                } else {
+                    mActiveTrack.updateIndex(true);
+                }
+                mActiveTrack = null;
+                ViewCompat.postInvalidateOnAnimation(MultiRulerView.this);
+            }
+        });
+    }
+
+    /**
+     * 设置外观
+     * 所有刻度共用同一套画笔，刻度数量、起始值这类初始状态由每条刻度的模型决定，样式中的这些属性会被忽略
+     *
+     * @param style 样式
+     */
+    public void setStyle(RulerStyle style) {
+        if (style == null) throw new IllegalArgumentException("style == null");
+        mOrientation = style.getOrientation();
+        mDragDetector.setOrientation(mOrientation);
+        mBackgroundColor = style.getBackgroundColor();
+        mTextPaint.setColor(style.getTextColor());
+        mTextPaint.setTextSize(style.getTextSize());
+        mHighlightPaint.setColor(style.getHighlightColor());
+        mHighlightPaint.setStrokeWidth(style.getHighlightWidth());
+        mMarkerPaint.setColor(style.getMarkerColor());
+        mPaint.setColor(style.getLineColor());
+        mPaint.setStrokeWidth(style.getLineWidth());
+        mShortLineLength = style.getShortLineLength();
+        mLongLineLength = style.getLongLineLength();
+        mMarkerWidth = style.getMarkerWidth();
+        mMarkerSpace = style.getMarkerSpace();
+        mRatio = style.getRatio();
+        for (int i = 0; i < mTracks.size(); i++) {
+            RulerTrack track = mTracks.get(i);
+            //间距可能变化，保持选中的刻度不变
+            int index = track.getCurrentIndex();
+            track.setDefaultSpace(style.getSpace());
+            track.setMaxTextWidth(-1);
+            track.setCurrentIndex(index);
+        }
+        mDefaultSpace = style.getSpace();
+        onTrackChanged(true);
+    }
+
+    /**
+     * 添加一条刻度，新的刻度排在交叉轴方向的最后
+     */
+    public void addTrack(RulerTrack track) {
+        if (track == null) throw new IllegalArgumentException("track == null");
+        if (mTracks.contains(track)) return;
+        track.attach(this);
+        track.setDefaultSpace(mDefaultSpace);
+        track.setCurrentIndex(track.getCurrentIndex());
+        mTracks.add(track);
+        onTrackChanged(true);
+    }
+
+    /**
+     * 移除一条刻度
+     */
+    public void removeTrack(RulerTrack track) {
+        if (!mTracks.remove(track)) return;
+        track.detach();
+        if (mActiveTrack == track) mActiveTrack = null;
+        onTrackChanged(true);
+    }
+
+    public int getTrackCount() {
+        return mTracks.size();
+    }
+
+    public RulerTrack getTrack(int index) {
+        return mTracks.get(index);
+    }
+
+    public int getOrientation() {
+        return mOrientation;
+    }
+
+    /**
+     * 刻度的范围、间距或者外观发生了变化
+     *
+     * @param layout 是否需要重新布局
+     */
+    void onTrackChanged(boolean layout) {
+        if (layout) {
+            mMarkerPathDirty = true;
+            requestLayout();
+        }
+        invalidate();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int cross = 0;
+        double length = 0;
+        for (int i = 0; i < mTracks.size(); i++) {
+            RulerTrack track = mTracks.get(i);
+            cross += (int) Math.ceil(getTrackCrossSize(track));
+            length = Math.max(length, track.getContentLength());
+        }
+        int main = (int) Math.min(length, MEASURED_SIZE_MASK);
+        if (mOrientation == HeightView.HORIZONTAL) {
+            setMeasuredDimension(resolveSize(main, widthMeasureSpec),
+                    resolveSize(cross + getPaddingTop() + getPaddingBottom(), heightMeasureSpec));
+        } else {
+            setMeasuredDimension(resolveSize(cross + getPaddingLeft() + getPaddingRight(), widthMeasureSpec),
+                    resolveSize(main, heightMeasureSpec));
+        }
+    }
+
+    /**
+     * 一条刻度在交叉轴方向上需要的尺寸
+     */
+    private float getTrackCrossSize(RulerTrack track) {
+        float label = mOrientation == HeightView.HORIZONTAL ? mTextPaint.getTextSize() : getMaxTextWidth(track);
+        return label + mLongLineLength + mMarkerSpace + mMarkerWidth;
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        super.onLayout(changed, left, top, right, bottom);
+        layoutTracks();
+    }
+
+    /**
+     * 在交叉轴方向上平分可用的空间
+     */
+    private void layoutTracks() {
+        final int count = mTracks.size();
+        if (count == 0) return;
+        final boolean horizontal = mOrientation == HeightView.HORIZONTAL;
+        final int start = horizontal ? getPaddingTop() : getPaddingLeft();
+        final int end = horizontal ? getHeight() - getPaddingBottom() : getWidth() - getPaddingRight();
+        final float slot = (float) (end - start) / count;
+        for (int i = 0; i < count; i++) {
+            RulerTrack track = mTracks.get(i);
+            track.setLayoutSlot(start + Math.round(slot * i), start + Math.round(slot * (i + 1)));
+        }
+        mMarkerPathDirty = true;
+    }
+
+    /**
+     * 获取刻度中最宽的文本的宽度，由刻度模型测量
+     */
+    private float getMaxTextWidth(RulerTrack track) {
+        if (track.getMaxTextWidth() < 0) {
+            track.setMaxTextWidth(track.getScaleModel().measureMaxLabelWidth(mTextPaint, mLabelBuffer, track.getOutSideLine()));
+        }
+        return track.getMaxTextWidth();
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if ((event.getAction() & MotionEvent.ACTION_MASK) == MotionEvent.ACTION_DOWN) {
+            mActiveTrack = findTrack(mOrientation == HeightView.HORIZONTAL ? event.getY() : event.getX());
+            if (mActiveTrack == null) return false;
+        }
+        return mDragDetector.onTouchEvent(event);
+    }
+
+    /**
+     * 查找交叉轴上指定坐标所在的刻度
+     */
+    private RulerTrack findTrack(float cross) {
+        for (int i = 0; i < mTracks.size(); i++) {
+            RulerTrack track = mTracks.get(i);
+            if (cross >= track.getSlotStart() && cross < track.getSlotEnd()) return track;
+        }
+        return null;
+    }
+
+    /**
+     * 手指沿着方向轴移动时位置变化的方向，和 {@link HeightView} 一致
+     */
+    private int axisSign() {
+        return mOrientation == HeightView.HORIZONTAL ? -1 : 1;
+    }
+
+    @Override
+    public void computeScroll() {
+        boolean animating = false;
+        for (int i = 0; i < mTracks.size(); i++) {
+            RulerTrack track = mTracks.get(i);
+            track.computeScroll();
+            if (track.isAnimating()) animating = true;
+        }
+        if (animating) ViewCompat.postInvalidateOnAnimation(this);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        canvas.drawColor(mBackgroundColor);
+        final int count = mTracks.size();
+        if (count == 0) return;
+
+        final boolean horizontal = mOrientation == HeightView.HORIZONTAL;
+        final int center = (horizontal ? getWidth() : getHeight()) >> 1;
+        int lines = 0;
+        for (int i = 0; i < count; i++) {
+            lines += getVisibleTickCount(mTracks.get(i), center);
+        }
+        if (mLinesArr.length < lines * 4) mLinesArr = new float[lines * 4];
+        if (mHighlightArr.length < count * 4) mHighlightArr = new float[count * 4];
+
+        //文本逐个绘制，刻度线和高亮线先收集起来，所有刻度合并成一次绘制
+        int offset = 0;
+        for (int i = 0; i < count; i++) {
+            offset = drawTrack(canvas, mTracks.get(i), center, horizontal, offset, i * 4);
+        }
+        canvas.drawLines(mLinesArr, 0, offset, mPaint);
+        canvas.drawLines(mHighlightArr, 0, count * 4, mHighlightPaint);
+
+        if (mMarkerPathDirty) updateMarkerPath();
+        canvas.drawPath(mMarkerPath, mMarkerPaint);
+    }
+
+    /**
+     * 绘制范围在中心两侧的长度
+     * 两端多算出文本的宽度，保证一半露在外面的文本也能画出来
+     */
+    private float getVisibleExtent(RulerTrack track, int center) {
+        return center + getMaxTextWidth(track);
+    }
+
+    /**
+     * 可见范围内的第一个刻度
+     */
+    private int getFirstVisibleIndex(RulerTrack track, int center) {
+        double first = Math.ceil((track.getPosition() - getVisibleExtent(track, center)) / track.getSpacing());
+        return (int) Math.max(0, first);
+    }
+
+    /**
+     * 可见范围内的刻度数量
+     */
+    private int getVisibleTickCount(RulerTrack track, int center) {
+        double last = Math.floor((track.getPosition() + getVisibleExtent(track, center)) / track.getSpacing());
+        int lastIndex = (int) Math.min(track.getLines(), last);
+        return Math.max(0, lastIndex - getFirstVisibleIndex(track, center) + 1);
+    }
+
+    /**
+     * 绘制一条刻度的文本，并把刻度线和高亮线写入合并的数组
+     *
+     * @param offset          刻度线数组中开始写入的位置
+     * @param highlightOffset 高亮线数组中写入的位置
+     * @return 刻度线数组中写入结束的位置
+     */
+    private int drawTrack(Canvas canvas, RulerTrack track, int center, boolean horizontal, int offset, int highlightOffset) {
+        final ScaleModel model = track.getScaleModel();
+        final double position = track.getPosition();
+        final float spacing = track.getSpacing();
+        final int outSideLine = track.getOutSideLine();
+        final int first = getFirstVisibleIndex(track, center);
+        final int count = getVisibleTickCount(track, center);
+        final float textSize = mTextPaint.getTextSize();
+        final float maxTextWidth = horizontal ? 0 : getMaxTextWidth(track);
+        final int left = track.getSlotStart();
+        final int bottom = track.getSlotEnd();
+
+        //大坐标只在double中相减，float中只保存相对于第一个可见刻度的偏移
+        final float firstOffset = (float) (track.indexToPosition(first) - position);
+        for (int k = 0; k < count; k++) {
+            int i = first + k;
+            float along = firstOffset + k * spacing;
+            float lineLength = mShortLineLength;
+            if (i % outSideLine == 0) {
+                lineLength = mLongLineLength;
+                int length = model.formatValue(i, mLabelBuffer);
+                if (horizontal) {
+                    canvas.drawText(mLabelBuffer, 0, length, center + along, bottom, mTextPaint);
+                } else {
+                    float textWidth = mTextPaint.measureText(mLabelBuffer, 0, length);
+                    canvas.drawText(mLabelBuffer, 0, length, left + (maxTextWidth - textWidth) / 2, center - along, mTextPaint);
+                }
+            }
+            writeTick(mLinesArr, offset, horizontal, center, along, left + maxTextWidth, bottom - textSize, lineLength);
+            offset += 4;
+        }
+
+        int index = track.getCurrentIndex();
+        float along = (float) (track.indexToPosition(index) - position);
+        writeTick(mHighlightArr, highlightOffset, horizontal, center, along, left + maxTextWidth, bottom - textSize,
+                index % outSideLine == 0 ? mLongLineLength : mShortLineLength);
+        return offset;
+    }
+
+    /**
+     * 把一根刻度线写入数组
+     *
+     * @param along  刻度相对于中心沿着方向轴的偏移
+     * @param baseX  垂直方向上刻度线起点的x
+     * @param baseY  水平方向上刻度线起点的y
+     * @param length 刻度线的长度
+     */
+    private static void writeTick(float[] out, int offset, boolean horizontal, int center, float along,
+                                  float baseX, float baseY, float length) {
+        if (horizontal) {
+            out[offset] = center + along;
+            out[offset + 1] = baseY;
+            out[offset + 2] = center + along;
+            out[offset + 3] = baseY - length;
+        } else {
+            out[offset] = baseX;
+            out[offset + 1] = center - along;
+            out[offset + 2] = baseX + length;
+            out[offset + 3] = center - along;
+        }
+    }
+
+    /**
+     * 把所有刻度的三角形标记物合并成一条路径
+     */
+    private void updateMarkerPath() {
+        mMarkerPathDirty = false;
+        mMarkerPath.reset();
+        final boolean horizontal = mOrientation == HeightView.HORIZONTAL;
+        for (int i = 0; i < mTracks.size(); i++) {
+            RulerTrack track = mTracks.get(i);
+            if (horizontal) {
+                float anchorX = getWidth() >> 1;
+                float anchorY = track.getSlotEnd() - mTextPaint.getTextSize() - mLongLineLength - mMarkerSpace;
+                mMarkerPath.moveTo(anchorX, anchorY);
+                mMarkerPath.lineTo(anchorX - mMarkerWidth, anchorY - mMarkerWidth);
+                mMarkerPath.lineTo(anchorX + mMarkerWidth, anchorY - mMarkerWidth);
+            } else {
+                float anchorX = track.getSlotStart() + getMaxTextWidth(track) + mLongLineLength + mMarkerSpace;
+                float anchorY = getHeight() >> 1;
+                mMarkerPath.moveTo(anchorX, anchorY);
+                mMarkerPath.lineTo(anchorX + mMarkerWidth, anchorY - mMarkerWidth);
+                mMarkerPath.lineTo(anchorX + mMarkerWidth, anchorY + mMarkerWidth);
+            }
+            mMarkerPath.close();
+        }
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        mMarkerPathDirty = true;
+    }
+}
@@ -114,6 +114,19 @@ public class OverScroller {
         this(context, interpolator, flywheel);
     }
 
+    /**
+     * Sets the time source used to drive the animation. The default clock reads
+     * {@link AnimationUtils#currentAnimationTimeMillis()}; a controlled clock makes
+     * scrolls and flings deterministic, for example while replaying recorded gestures.
+     *
+     * @param clock The time source, or null to restore the default clock.
+     */
+    public void setClock(AnimationClock clock) {
+        if (clock == null) clock = AnimationClock.SYSTEM;
+        mScrollerX.mClock = clock;
+        mScrollerY.mClock = clock;
+    }
+
     void setInterpolator(Interpolator interpolator) {
         if (interpolator == null) {
             mInterpolator = new ViscousFluidInterpolator();
@@ -271,6 +284,20 @@ public class OverScroller {
         mScrollerX.setFinalPosition(newX);
     }
 
+    /**
+     * Moves the landing point of a running fling on the X axis. Unlike
+     * {@link #setFinalX(int)} the spline is rescaled, so the fling keeps its duration
+     * and deceleration profile and simply comes to rest at the new position. Only a
+     * fling that has not been clamped against its bounds can be retargeted, and the
+     * new position must lie in the direction of the fling.
+     *
+     * @param newX The new final X offset as an absolute distance from the origin.
+     * @return true if the fling was retargeted, false if it was left untouched.
+     */
+    public boolean retargetFlingX(int newX) {
+        return mMode == FLING_MODE && mScrollerX.retargetSpline(newX);
+    }
+
     /**
      * Sets the final position (Y) for this scroller.
      *
@@ -300,7 +327,7 @@ public class OverScroller {
 
         switch (mMode) {
             case SCROLL_MODE:
-                long time = AnimationUtils.currentAnimationTimeMillis();
+                long time = mScrollerX.mClock.currentAnimationTimeMillis();
                 // Any scroller can be used for time, since they were started
                 // together in scroll mode. We use X here.
                 final long elapsedTime = time - mScrollerX.mStartTime;
@@ -520,7 +547,7 @@ public class OverScroller {
      * @hide
      */
     public int timePassed() {
-        final long time = AnimationUtils.currentAnimationTimeMillis();
+        final long time = mScrollerX.mClock.currentAnimationTimeMillis();
         final long startTime = Math.min(mScrollerX.mStartTime, mScrollerY.mStartTime);
         return (int) (time - startTime);
     }
@@ -578,6 +605,9 @@ public class OverScroller {
         // Current state of the animation.
         private int mState = SPLINE;
 
+        // Time source of the animation
+        private AnimationClock mClock = AnimationClock.SYSTEM;
+
         // Constant gravity value, used in the deceleration phase.
         private static final float GRAVITY = 2000.0f;
 
@@ -681,7 +711,7 @@ public class OverScroller {
             mCurrentPosition = mStart = start;
             mFinal = start + distance;
 
-            mStartTime = AnimationUtils.currentAnimationTimeMillis();
+            mStartTime = mClock.currentAnimationTimeMillis();
             mDuration = duration;
 
             // Unused
@@ -702,8 +732,19 @@ public class OverScroller {
             mFinished = false;
         }
 
+        boolean retargetSpline(int position) {
+            if (mFinished || mState != SPLINE || mSplineDuration <= 0) return false;
+            // A clamped fling no longer ends where its spline ends
+            if (mFinal != mStart + mSplineDistance) return false;
+            final int distance = position - mStart;
+            if (distance == 0 || Math.signum(distance) != Math.signum(mSplineDistance)) return false;
+            mSplineDistance = distance;
+            mFinal = position;
+            return true;
+        }
+
         void extendDuration(int extend) {
-            final long time = AnimationUtils.currentAnimationTimeMillis();
+            final long time = mClock.currentAnimationTimeMillis();
             final int elapsedTime = (int) (time - mStartTime);
             mDuration = elapsedTime + extend;
             mFinished = false;
@@ -715,7 +756,7 @@ public class OverScroller {
             mCurrentPosition = mStart = mFinal = start;
             mVelocity = 0;
 
-            mStartTime = AnimationUtils.currentAnimationTimeMillis();
+            mStartTime = mClock.currentAnimationTimeMillis();
             mDuration = 0;
 
             if (start < min) {
@@ -746,7 +787,7 @@ public class OverScroller {
             mFinished = false;
             mCurrVelocity = mVelocity = velocity;
             mDuration = mSplineDuration = 0;
-            mStartTime = AnimationUtils.currentAnimationTimeMillis();
+            mStartTime = mClock.currentAnimationTimeMillis();
             mCurrentPosition = mStart = start;
 
             if (start > max || start < min) {
@@ -841,7 +882,7 @@ public class OverScroller {
             // mState is used to detect successive notifications 
             if (mState == SPLINE) {
                 mOver = over;
-                mStartTime = AnimationUtils.currentAnimationTimeMillis();
+                mStartTime = mClock.currentAnimationTimeMillis();
                 // We were in fling/scroll mode before: current velocity is such that distance to
                 // edge is increasing. This ensures that startAfterEdge will not start a new fling.
                 startAfterEdge(start, end, end, (int) mCurrVelocity);
@@ -902,7 +943,7 @@ public class OverScroller {
          * reached.
          */
         boolean update() {
-            final long time = AnimationUtils.currentAnimationTimeMillis();
+            final long time = mClock.currentAnimationTimeMillis();
             final long currentTime = time - mStartTime;
 
             if (currentTime == 0) {
@@ -0,0 +1,201 @@
+package com.lovely3x.view;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v4.view.ViewCompat;
+import android.view.Choreographer;
+import android.view.animation.AnimationUtils;
+
+import java.util.ArrayList;
+
+/**
+ * 多个刻度尺共享的动画调度器
+ * 每一帧只注册一个帧回调，用同一个帧时间依次推进所有正在滚动的刻度尺，只重绘位置发生了变化的刻度尺，
+ * 停止滚动的刻度尺会自动注销，没有正在滚动的刻度尺时不再请求帧回调
+ * <p>
+ * 通过 {@link HeightView#setAnimationScheduler(RulerAnimationScheduler)} 开启，只能在主线程使用。
+ * API 16 以上使用 Choreographer，以下退回到按照帧间隔投递的 Handler 消息
+ */
+public class RulerAnimationScheduler implements AnimationClock {
+
+    /**
+     * 没有 Choreographer 时的帧间隔
+     */
+    private static final long FALLBACK_FRAME_INTERVAL_MS = 16;
+
+    private static RulerAnimationScheduler sInstance;
+
+    /**
+     * 正在滚动的刻度尺
+     */
+    private final ArrayList<HeightView> mRulers = new ArrayList<>();
+    /**
+     * 推进时使用的副本，推进的过程中监听器可能会注册或者注销刻度尺
+     */
+    private HeightView[] mFrameRulers = new HeightView[4];
+
+    private final FrameCallback mFrameCallback;
+    private boolean mFrameScheduled;
+
+    /**
+     * 是否正在推进一帧
+     */
+    private boolean mInFrame;
+    /**
+     * 已经发出的最新时间，保证时钟不会倒退
+     */
+    private long mLatestTime;
+
+    /**
+     * 获取主线程的调度器
+     */
+    public static RulerAnimationScheduler getInstance() {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            throw new IllegalStateException("RulerAnimationScheduler must be used on the main thread");
+        }
+        if (sInstance == null) sInstance = new RulerAnimationScheduler();
+        return sInstance;
+    }
+
+    private RulerAnimationScheduler() {
+        mFrameCallback = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN
+                ? new ChoreographerFrameCallback(this) : new HandlerFrameCallback(this);
+    }
+
+    /**
+     * 帧内返回这一帧的时间，所有刻度尺的滚动器读到的都是同一个值；帧外返回系统的动画时间
+     * 帧时间可能早于帧开始之前读到的系统时间，所以总是取已经发出的最大值，避免滚动器的时间倒退
+     */
+    @Override
+    public long currentAnimationTimeMillis() {
+        if (!mInFrame) {
+            long time = AnimationUtils.currentAnimationTimeMillis();
+            if (time > mLatestTime) mLatestTime = time;
+        }
+        return mLatestTime;
+    }
+
+    /**
+     * 注册正在滚动的刻度尺，已经注册过的会被忽略
+     * 是否注册过记录在刻度尺的标记上，不需要遍历列表
+     */
+    void add(HeightView ruler) {
+        if (ruler.mScheduledInSharedAnimation) return;
+        ruler.mScheduledInSharedAnimation = true;
+        mRulers.add(ruler);
+        scheduleFrame();
+    }
+
+    /**
+     * 注销刻度尺
+     */
+    void remove(HeightView ruler) {
+        if (!ruler.mScheduledInSharedAnimation) return;
+        ruler.mScheduledInSharedAnimation = false;
+        mRulers.remove(ruler);
+    }
+
+    /**
+     * 是否正在推进一帧
+     */
+    boolean isInFrame() {
+        return mInFrame;
+    }
+
+    /**
+     * 正在滚动的刻度尺数量
+     */
+    public int getActiveCount() {
+        return mRulers.size();
+    }
+
+    private void scheduleFrame() {
+        if (mFrameScheduled || mRulers.isEmpty()) return;
+        mFrameScheduled = true;
+        mFrameCallback.post();
+    }
+
+    /**
+     * 用同一个帧时间推进所有注册的刻度尺
+     *
+     * @param frameTimeMillis 帧时间，单位毫秒
+     */
+    private void doFrame(long frameTimeMillis) {
+        mFrameScheduled = false;
+        final int count = mRulers.size();
+        if (mFrameRulers.length < count) mFrameRulers = new HeightView[Math.max(count, mFrameRulers.length * 2)];
+        mRulers.toArray(mFrameRulers);
+
+        if (frameTimeMillis > mLatestTime) mLatestTime = frameTimeMillis;
+        mInFrame = true;
+        try {
+            for (int i = 0; i < count; i++) {
+                HeightView ruler = mFrameRulers[i];
+                mFrameRulers[i] = null;
+                if (ViewCompat.isAttachedToWindow(ruler)) ruler.computeScroll();
+                if (!ViewCompat.isAttachedToWindow(ruler) || !ruler.isAnimating()) remove(ruler);
+            }
+        } finally {
+            mInFrame = false;
+        }
+        scheduleFrame();
+    }
+
+    /**
+     * 帧回调的来源
+     */
+    private static abstract class FrameCallback {
+
+        final RulerAnimationScheduler mScheduler;
+
+        FrameCallback(RulerAnimationScheduler scheduler) {
+            mScheduler = scheduler;
+        }
+
+        /**
+         * 请求下一帧
+         */
+        abstract void post();
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static class ChoreographerFrameCallback extends FrameCallback implements Choreographer.FrameCallback {
+
+        private final Choreographer mChoreographer = Choreographer.getInstance();
+
+        ChoreographerFrameCallback(RulerAnimationScheduler scheduler) {
+            super(scheduler);
+        }
+
+        @Override
+        void post() {
+            mChoreographer.postFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mScheduler.doFrame(frameTimeNanos / 1000000);
+        }
+    }
+
+    private static class HandlerFrameCallback extends FrameCallback implements Runnable {
+
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+        HandlerFrameCallback(RulerAnimationScheduler scheduler) {
+            super(scheduler);
+        }
+
+        @Override
+        void post() {
+            mHandler.postDelayed(this, FALLBACK_FRAME_INTERVAL_MS);
+        }
+
+        @Override
+        public void run() {
+            mScheduler.doFrame(AnimationUtils.currentAnimationTimeMillis());
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package com.lovely3x.view;
+
+import android.os.Build;
+import android.os.SystemClock;
+import android.os.Trace;
+
+import java.util.Arrays;
+
+/**
+ * 刻度尺的运行时性能统计
+ * 所有的数据都保存在预先分配好的基本类型计数器和环形缓冲区中，记录过程中不会产生任何对象分配
+ * 只有在 {@link HeightView#setMetricsEnabled(boolean)} 打开后才会创建，关闭时控件内只剩一次判空
+ */
+public class RulerMetrics {
+
+    /**
+     * 滚动器空闲
+     */
+    public static final int SCROLLER_IDLE = 0;
+    /**
+     * 滚动器处于 fling 状态
+     */
+    public static final int SCROLLER_FLING = 1;
+    /**
+     * 滚动器处于吸附(回到刻度)状态
+     */
+    public static final int SCROLLER_SETTLE = 2;
+    /**
+     * 滚动器状态数量
+     */
+    public static final int SCROLLER_STATE_COUNT = 3;
+
+    /**
+     * 绘制耗时直方图每个桶的上限，单位微秒，最后一个桶收纳所有超出的值
+     */
+    public static final int[] DRAW_HISTOGRAM_BOUNDS_US = {250, 500, 1000, 2000, 4000, 8000, 16000};
+
+    /**
+     * 绘制耗时直方图桶的数量
+     */
+    public static final int DRAW_HISTOGRAM_BUCKETS = DRAW_HISTOGRAM_BOUNDS_US.length + 1;
+
+    /**
+     * 绘制耗时环形缓冲区的长度
+     */
+    public static final int DRAW_RING_SIZE = 128;
+
+    /**
+     * 每次 fling 帧数的环形缓冲区长度
+     */
+    public static final int FLING_RING_SIZE = 32;
+
+    /**
+     * 监听器回调耗时环形缓冲区的长度
+     */
+    public static final int DISPATCH_RING_SIZE = 32;
+
+    /**
+     * 默认的帧间隔(60Hz)，单位纳秒
+     */
+    public static final long DEFAULT_FRAME_INTERVAL_NANOS = 16666667L;
+
+    private static final String TRACE_DRAW = "HeightView#onDraw";
+    private static final String TRACE_DISPATCH = "HeightView#dispatchItemChanged";
+
+    /**
+     * 是否输出 systrace 标记
+     */
+    private boolean mTraceEnabled;
+
+    /**
+     * 期望的帧间隔
+     */
+    private long mFrameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
+
+    private final int[] mDrawHistogram = new int[DRAW_HISTOGRAM_BUCKETS];
+    private final long[] mDrawRing = new long[DRAW_RING_SIZE];
+    private int mDrawRingHead;
+    private long mDrawCount;
+    private long mDrawTotalNanos;
+    private long mDrawMaxNanos;
+    private long mDrawStartNanos;
+
+    private int mFrameTicks;
+    private int mFrameLabels;
+    private int mLastFrameTicks;
+    private int mLastFrameLabels;
+    private int mMaxFrameTicks;
+    private int mMaxFrameLabels;
+    private long mTotalTicks;
+    private long mTotalLabels;
+
+    private final int[] mFlingRing = new int[FLING_RING_SIZE];
+    private int mFlingRingHead;
+    private long mFlingCount;
+    private int mCurrentFlingFrames;
+
+    private long mLastAnimationFrameNanos;
+    private long mAnimationFrames;
+    private long mSkippedFrames;
+
+    private final long[] mDispatchRing = new long[DISPATCH_RING_SIZE];
+    private int mDispatchRingHead;
+    private long mDispatchCount;
+    private long mDispatchMaxNanos;
+    private long mDispatchStartNanos;
+
+    private int mScrollerState = SCROLLER_IDLE;
+    private final int[] mScrollerTransitions = new int[SCROLLER_STATE_COUNT * SCROLLER_STATE_COUNT];
+
+    /**
+     * 是否输出 systrace 标记，需要 API 18 以上
+     */
+    public boolean isTraceEnabled() {
+        return mTraceEnabled;
+    }
+
+    /**
+     * 设置是否在绘制和回调时输出 systrace 标记
+     *
+     * @param traceEnabled true 输出 {@link Trace#beginSection(String)} 标记
+     */
+    public void setTraceEnabled(boolean traceEnabled) {
+        this.mTraceEnabled = traceEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+    }
+
+    public long getFrameIntervalNanos() {
+        return mFrameIntervalNanos;
+    }
+
+    /**
+     * 设置期望的帧间隔，用于统计跳帧
+     *
+     * @param frameIntervalNanos 帧间隔，单位纳秒
+     */
+    public void setFrameIntervalNanos(long frameIntervalNanos) {
+        if (frameIntervalNanos <= 0) throw new IllegalArgumentException("frameIntervalNanos must be > 0");
+        this.mFrameIntervalNanos = frameIntervalNanos;
+    }
+
+    /**
+     * 开始一帧的绘制
+     */
+    void onDrawStart() {
+        if (mTraceEnabled) Trace.beginSection(TRACE_DRAW);
+        mFrameTicks = 0;
+        mFrameLabels = 0;
+        mDrawStartNanos = System.nanoTime();
+    }
+
+    /**
+     * 记录本帧绘制的刻度和文本数量
+     */
+    void onTicksDrawn(int ticks, int labels) {
+        mFrameTicks += ticks;
+        mFrameLabels += labels;
+    }
+
+    /**
+     * 结束一帧的绘制
+     */
+    void onDrawEnd() {
+        long duration = System.nanoTime() - mDrawStartNanos;
+
+        mDrawRing[mDrawRingHead] = duration;
+        mDrawRingHead = (mDrawRingHead + 1) % DRAW_RING_SIZE;
+        mDrawCount++;
+        mDrawTotalNanos += duration;
+        if (duration > mDrawMaxNanos) mDrawMaxNanos = duration;
+        mDrawHistogram[bucketOf(duration / 1000)]++;
+
+        mLastFrameTicks = mFrameTicks;
+        mLastFrameLabels = mFrameLabels;
+        if (mFrameTicks > mMaxFrameTicks) mMaxFrameTicks = mFrameTicks;
+        if (mFrameLabels > mMaxFrameLabels) mMaxFrameLabels = mFrameLabels;
+        mTotalTicks += mFrameTicks;
+        mTotalLabels += mFrameLabels;
+
+        if (mTraceEnabled) Trace.endSection();
+    }
+
+    /**
+     * 滚动器推进了一帧动画
+     */
+    void onAnimationFrame() {
+        long now = System.nanoTime();
+        if (mLastAnimationFrameNanos != 0) {
+            long interval = now - mLastAnimationFrameNanos;
+            //超过1.5帧间隔的部分都视为跳帧
+            if (interval * 2 > mFrameIntervalNanos * 3) {
+                mSkippedFrames += (interval + (mFrameIntervalNanos >> 1)) / mFrameIntervalNanos - 1;
+            }
+        }
+        mLastAnimationFrameNanos = now;
+        mAnimationFrames++;
+        if (mScrollerState == SCROLLER_FLING) mCurrentFlingFrames++;
+    }
+
+    /**
+     * 滚动器状态发生变化
+     *
+     * @param state {@link #SCROLLER_IDLE}, {@link #SCROLLER_FLING}, {@link #SCROLLER_SETTLE}
+     */
+    void onScrollerStateChanged(int state) {
+        if (state == mScrollerState) return;
+        mScrollerTransitions[mScrollerState * SCROLLER_STATE_COUNT + state]++;
+        if (mScrollerState == SCROLLER_FLING) {
+            mFlingRing[mFlingRingHead] = mCurrentFlingFrames;
+            mFlingRingHead = (mFlingRingHead + 1) % FLING_RING_SIZE;
+            mFlingCount++;
+        }
+        if (state == SCROLLER_FLING) mCurrentFlingFrames = 0;
+        //新的动画开始，不把空闲的时间算作跳帧
+        if (mScrollerState == SCROLLER_IDLE) mLastAnimationFrameNanos = 0;
+        mScrollerState = state;
+    }
+
+    /**
+     * 开始分发监听器回调
+     */
+    void onDispatchStart() {
+        if (mTraceEnabled) Trace.beginSection(TRACE_DISPATCH);
+        mDispatchStartNanos = System.nanoTime();
+    }
+
+    /**
+     * 监听器回调分发结束
+     */
+    void onDispatchEnd() {
+        long duration = System.nanoTime() - mDispatchStartNanos;
+        mDispatchRing[mDispatchRingHead] = duration;
+        mDispatchRingHead = (mDispatchRingHead + 1) % DISPATCH_RING_SIZE;
+        mDispatchCount++;
+        if (duration > mDispatchMaxNanos) mDispatchMaxNanos = duration;
+        if (mTraceEnabled) Trace.endSection();
+    }
+
+    /**
+     * 清空所有统计数据
+     */
+    public void reset() {
+        Arrays.fill(mDrawHistogram, 0);
+        Arrays.fill(mDrawRing, 0);
+        mDrawRingHead = 0;
+        mDrawCount = mDrawTotalNanos = mDrawMaxNanos = 0;
+
+        mLastFrameTicks = mLastFrameLabels = mMaxFrameTicks = mMaxFrameLabels = 0;
+        mTotalTicks = mTotalLabels = 0;
+
+        Arrays.fill(mFlingRing, 0);
+        mFlingRingHead = 0;
+        mFlingCount = 0;
+        mCurrentFlingFrames = 0;
+
+        mLastAnimationFrameNanos = 0;
+        mAnimationFrames = mSkippedFrames = 0;
+
+        Arrays.fill(mDispatchRing, 0);
+        mDispatchRingHead = 0;
+        mDispatchCount = mDispatchMaxNanos = 0;
+
+        Arrays.fill(mScrollerTransitions, 0);
+    }
+
+    /**
+     * 把当前的统计数据复制到快照中
+     * 快照可以重复使用，复制过程不会分配内存
+     *
+     * @param out 用于保存数据的快照
+     * @return 传入的快照
+     */
+    public Snapshot snapshot(Snapshot out) {
+        System.arraycopy(mDrawHistogram, 0, out.drawHistogram, 0, DRAW_HISTOGRAM_BUCKETS);
+        out.drawCount = copyRing(mDrawRing, mDrawRingHead, mDrawCount, out.recentDrawNanos);
+        out.totalDrawCount = mDrawCount;
+        out.averageDrawNanos = mDrawCount == 0 ? 0 : mDrawTotalNanos / mDrawCount;
+        out.maxDrawNanos = mDrawMaxNanos;
+
+        out.lastFrameTicks = mLastFrameTicks;
+        out.lastFrameLabels = mLastFrameLabels;
+        out.maxFrameTicks = mMaxFrameTicks;
+        out.maxFrameLabels = mMaxFrameLabels;
+        out.averageFrameTicks = mDrawCount == 0 ? 0 : (float) mTotalTicks / mDrawCount;
+        out.averageFrameLabels = mDrawCount == 0 ? 0 : (float) mTotalLabels / mDrawCount;
+
+        int flings = (int) Math.min(mFlingCount, FLING_RING_SIZE);
+        for (int i = 0; i < flings; i++) {
+            out.recentFlingFrames[i] = mFlingRing[(mFlingRingHead - flings + i + FLING_RING_SIZE) % FLING_RING_SIZE];
+        }
+        out.flingCount = flings;
+        out.totalFlingCount = mFlingCount;
+
+        out.animationFrames = mAnimationFrames;
+        out.skippedFrames = mSkippedFrames;
+
+        out.dispatchCount = copyRing(mDispatchRing, mDispatchRingHead, mDispatchCount, out.recentDispatchNanos);
+        out.totalDispatchCount = mDispatchCount;
+        out.maxDispatchNanos = mDispatchMaxNanos;
+
+        System.arraycopy(mScrollerTransitions, 0, out.scrollerTransitions, 0, mScrollerTransitions.length);
+        out.scrollerState = mScrollerState;
+        out.uptimeMillis = SystemClock.uptimeMillis();
+        return out;
+    }
+
+    /**
+     * 按照时间顺序(从旧到新)复制环形缓冲区
+     */
+    private static int copyRing(long[] ring, int head, long total, long[] out) {
+        int size = ring.length;
+        int count = (int) Math.min(total, size);
+        for (int i = 0; i < count; i++) {
+            out[i] = ring[(head - count + i + size) % size];
+        }
+        return count;
+    }
+
+    /**
+     * 获取耗时所在的直方图的桶
+     */
+    private static int bucketOf(long micros) {
+        for (int i = 0; i < DRAW_HISTOGRAM_BOUNDS_US.length; i++) {
+            if (micros <= DRAW_HISTOGRAM_BOUNDS_US[i]) return i;
+        }
+        return DRAW_HISTOGRAM_BOUNDS_US.length;
+    }
+
+    /**
+     * 统计数据的快照
+     * 由调用者创建并重复使用
+     */
+    public static class Snapshot {
+        /**
+         * 绘制耗时直方图，桶的上限见 {@link #DRAW_HISTOGRAM_BOUNDS_US}
+         */
+        public final int[] drawHistogram = new int[DRAW_HISTOGRAM_BUCKETS];
+        /**
+         * 最近的绘制耗时(从旧到新)，有效长度为 {@link #drawCount}
+         */
+        public final long[] recentDrawNanos = new long[DRAW_RING_SIZE];
+        public int drawCount;
+        public long totalDrawCount;
+        public long averageDrawNanos;
+        public long maxDrawNanos;
+
+        /**
+         * 上一帧绘制的刻度数和文本数
+         */
+        public int lastFrameTicks;
+        public int lastFrameLabels;
+        public int maxFrameTicks;
+        public int maxFrameLabels;
+        public float averageFrameTicks;
+        public float averageFrameLabels;
+
+        /**
+         * 最近每次 fling 持续的帧数(从旧到新)，有效长度为 {@link #flingCount}
+         */
+        public final int[] recentFlingFrames = new int[FLING_RING_SIZE];
+        public int flingCount;
+        public long totalFlingCount;
+
+        /**
+         * 动画帧数和其中跳过的帧数
+         */
+        public long animationFrames;
+        public long skippedFrames;
+
+        /**
+         * 最近的监听器回调耗时(从旧到新)，有效长度为 {@link #dispatchCount}
+         */
+        public final long[] recentDispatchNanos = new long[DISPATCH_RING_SIZE];
+        public int dispatchCount;
+        public long totalDispatchCount;
+        public long maxDispatchNanos;
+
+        /**
+         * 滚动器状态转换次数，下标为 from * {@link #SCROLLER_STATE_COUNT} + to
+         */
+        public final int[] scrollerTransitions = new int[SCROLLER_STATE_COUNT * SCROLLER_STATE_COUNT];
+        public int scrollerState;
+
+        /**
+         * 生成快照的时间
+         */
+        public long uptimeMillis;
+
+        /**
+         * 获取从 from 状态到 to 状态的转换次数
+         */
+        public int getTransitions(int from, int to) {
+            return scrollerTransitions[from * SCROLLER_STATE_COUNT + to];
+        }
+    }
+}
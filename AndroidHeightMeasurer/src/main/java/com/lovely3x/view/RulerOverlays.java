@@ -0,0 +1,239 @@
+package com.lovely3x.view;
+
+import java.util.Arrays;
+
+/**
+ * 刻度尺上的叠加标注
+ * 支持区间(比如健康的BMI范围、目标体重范围)和单点(比如目标值、历史测量值)两种标注，每个标注可以带一段文本
+ * <p>
+ * 标注保存在按照起点排序的数组中，数组隐式地构成一棵平衡二叉树，每个节点额外保存子树中最大的终点(增广区间树)，
+ * 查询和可见范围相交的标注只需要 O(log n + k)，屏幕外的标注不会产生任何绘制开销。
+ * 所有的数据都保存在基本类型数组中，修改后在下一次查询时重建
+ */
+public class RulerOverlays {
+
+    /**
+     * 区间标注
+     */
+    public static final int TYPE_BAND = 0;
+    /**
+     * 单点标注
+     */
+    public static final int TYPE_POINT = 1;
+
+    private int mCount;
+    private double[] mStarts = new double[8];
+    private double[] mEnds = new double[8];
+    private int[] mColors = new int[8];
+    private int[] mTypes = new int[8];
+    private String[] mLabels = new String[8];
+
+    /**
+     * 按照起点排序后的标注下标，以及每个节点对应子树中最大的终点
+     */
+    private int[] mSorted = new int[8];
+    private double[] mMaxEnds = new double[8];
+    private int[] mSortBuffer = new int[8];
+    private boolean mDirty;
+
+    /**
+     * 查询过程中的结果数组和数量
+     */
+    private int[] mQueryResult;
+    private int mQueryCount;
+
+    /**
+     * 使用这些标注的控件，修改后通知它重绘
+     */
+    private HeightView mHost;
+
+    /**
+     * 添加区间标注
+     *
+     * @param startIndex 起点，单位是刻度下标，可以是小数
+     * @param endIndex   终点，单位是刻度下标，可以是小数
+     * @param color      颜色，通常是半透明的
+     * @param label      文本，可以为null
+     * @return 标注的编号
+     */
+    public int addBand(double startIndex, double endIndex, int color, String label) {
+        return add(TYPE_BAND, Math.min(startIndex, endIndex), Math.max(startIndex, endIndex), color, label);
+    }
+
+    /**
+     * 添加单点标注
+     *
+     * @param index 位置，单位是刻度下标，可以是小数
+     * @param color 颜色
+     * @param label 文本，可以为null
+     * @return 标注的编号
+     */
+    public int addPoint(double index, int color, String label) {
+        return add(TYPE_POINT, index, index, color, label);
+    }
+
+    private int add(int type, double start, double end, int color, String label) {
+        if (Double.isNaN(start) || Double.isNaN(end)) throw new IllegalArgumentException("index must not be NaN");
+        if (mCount == mStarts.length) {
+            int capacity = mCount * 2;
+            mStarts = Arrays.copyOf(mStarts, capacity);
+            mEnds = Arrays.copyOf(mEnds, capacity);
+            mColors = Arrays.copyOf(mColors, capacity);
+            mTypes = Arrays.copyOf(mTypes, capacity);
+            mLabels = Arrays.copyOf(mLabels, capacity);
+        }
+        mStarts[mCount] = start;
+        mEnds[mCount] = end;
+        mColors[mCount] = color;
+        mTypes[mCount] = type;
+        mLabels[mCount] = label;
+        mDirty = true;
+        notifyChanged();
+        return mCount++;
+    }
+
+    /**
+     * 移除所有的标注
+     */
+    public void clear() {
+        Arrays.fill(mLabels, 0, mCount, null);
+        mCount = 0;
+        mDirty = true;
+        notifyChanged();
+    }
+
+    /**
+     * 标注的数量
+     */
+    public int getCount() {
+        return mCount;
+    }
+
+    public int getType(int id) {
+        return mTypes[id];
+    }
+
+    public double getStart(int id) {
+        return mStarts[id];
+    }
+
+    public double getEnd(int id) {
+        return mEnds[id];
+    }
+
+    public int getColor(int id) {
+        return mColors[id];
+    }
+
+    public String getLabel(int id) {
+        return mLabels[id];
+    }
+
+    /**
+     * 查询和指定范围相交的标注
+     *
+     * @param from 范围的起点，单位是刻度下标
+     * @param to   范围的终点，单位是刻度下标
+     * @param out  保存结果的数组，长度不够时会重新分配
+     * @return 保存结果的数组，结果按照起点排序，数量由 {@link #getQueryCount()} 获取
+     */
+    public int[] query(double from, double to, int[] out) {
+        if (mDirty) rebuild();
+        mQueryCount = 0;
+        mQueryResult = out;
+        if (mCount > 0) query(0, mCount, from, to);
+        out = mQueryResult;
+        mQueryResult = null;
+        return out;
+    }
+
+    /**
+     * 上一次查询的结果数量
+     */
+    public int getQueryCount() {
+        return mQueryCount;
+    }
+
+    /**
+     * 在 [low, high) 这段排序数组构成的子树中查询，子树的根是中点
+     */
+    private void query(int low, int high, double from, double to) {
+        final int mid = (low + high) >>> 1;
+        //子树中所有的标注都在范围之前结束
+        if (mMaxEnds[mid] < from) return;
+        if (low < mid) query(low, mid, from, to);
+        final int id = mSorted[mid];
+        //这个节点和右子树都在范围之后开始
+        if (mStarts[id] > to) return;
+        if (mEnds[id] >= from) {
+            if (mQueryCount == mQueryResult.length) {
+                mQueryResult = Arrays.copyOf(mQueryResult, Math.max(8, mQueryCount * 2));
+            }
+            mQueryResult[mQueryCount++] = id;
+        }
+        if (mid + 1 < high) query(mid + 1, high, from, to);
+    }
+
+    /**
+     * 按照起点排序，并计算每个子树中最大的终点
+     */
+    private void rebuild() {
+        mDirty = false;
+        if (mSorted.length < mCount) {
+            mSorted = new int[mStarts.length];
+            mMaxEnds = new double[mStarts.length];
+            mSortBuffer = new int[mStarts.length];
+        }
+        for (int i = 0; i < mCount; i++) mSorted[i] = i;
+        sort(0, mCount, mSortBuffer);
+        if (mCount > 0) computeMaxEnd(0, mCount);
+    }
+
+    /**
+     * 稳定的归并排序，两半已经有序时跳过合并，按照时间添加的历史测量值这类基本有序的数据接近线性
+     */
+    private void sort(int low, int high, int[] buffer) {
+        if (high - low <= 16) {
+            for (int i = low + 1; i < high; i++) {
+                int id = mSorted[i];
+                int j = i - 1;
+                while (j >= low && mStarts[mSorted[j]] > mStarts[id]) {
+                    mSorted[j + 1] = mSorted[j];
+                    j--;
+                }
+                mSorted[j + 1] = id;
+            }
+            return;
+        }
+        int mid = (low + high) >>> 1;
+        sort(low, mid, buffer);
+        sort(mid, high, buffer);
+        if (mStarts[mSorted[mid - 1]] <= mStarts[mSorted[mid]]) return;
+        System.arraycopy(mSorted, low, buffer, low, high - low);
+        int left = low, right = mid;
+        for (int i = low; i < high; i++) {
+            if (right >= high || (left < mid && mStarts[buffer[left]] <= mStarts[buffer[right]])) {
+                mSorted[i] = buffer[left++];
+            } else {
+                mSorted[i] = buffer[right++];
+            }
+        }
+    }
+
+    private double computeMaxEnd(int low, int high) {
+        final int mid = (low + high) >>> 1;
+        double max = mEnds[mSorted[mid]];
+        if (low < mid) max = Math.max(max, computeMaxEnd(low, mid));
+        if (mid + 1 < high) max = Math.max(max, computeMaxEnd(mid + 1, high));
+        mMaxEnds[mid] = max;
+        return max;
+    }
+
+    void setHost(HeightView host) {
+        mHost = host;
+    }
+
+    private void notifyChanged() {
+        if (mHost != null) mHost.onOverlaysChanged();
+    }
+}
@@ -0,0 +1,102 @@
+package com.lovely3x.view;
+
+/**
+ * 刻度尺需要绑定的数据
+ * 在 RecyclerView 这类列表中复用 {@link HeightView} 时，每一行保存一个状态，
+ * 绑定时通过 {@link HeightView#bind(RulerState)} 一次性切换刻度范围、选中的刻度和样式
+ */
+public class RulerState {
+
+    private int mLines;
+    private int mStartLineValue;
+    private int mSetupValue;
+    private int mCurrentLineIndex;
+    private RulerStyle mStyle;
+    private ScaleModel mScaleModel;
+
+    /**
+     * @param lines            刻度的数量，参考 {@link HeightView#setLines(int)}
+     * @param startLineValue   第0个刻度的值
+     * @param setupValue       每个长线的步进值
+     * @param currentLineIndex 选中的刻度
+     */
+    public RulerState(int lines, int startLineValue, int setupValue, int currentLineIndex) {
+        setLines(lines);
+        this.mStartLineValue = startLineValue;
+        this.mSetupValue = setupValue;
+        this.mCurrentLineIndex = currentLineIndex;
+    }
+
+    /**
+     * 使用自定义的刻度模型，刻度数量由模型决定，{@link #getLines()} 等线性刻度的参数不再使用
+     *
+     * @param scaleModel       刻度模型
+     * @param currentLineIndex 选中的刻度
+     */
+    public RulerState(ScaleModel scaleModel, int currentLineIndex) {
+        setScaleModel(scaleModel);
+        this.mSetupValue = 1;
+        this.mCurrentLineIndex = currentLineIndex;
+    }
+
+    public int getLines() {
+        return mLines;
+    }
+
+    public void setLines(int lines) {
+        if (lines < 0) throw new IllegalArgumentException("lines must be >= 0");
+        this.mLines = lines;
+    }
+
+    public int getStartLineValue() {
+        return mStartLineValue;
+    }
+
+    public void setStartLineValue(int startLineValue) {
+        this.mStartLineValue = startLineValue;
+    }
+
+    public int getSetupValue() {
+        return mSetupValue;
+    }
+
+    public void setSetupValue(int setupValue) {
+        this.mSetupValue = setupValue;
+    }
+
+    public int getCurrentLineIndex() {
+        return mCurrentLineIndex;
+    }
+
+    public void setCurrentLineIndex(int currentLineIndex) {
+        this.mCurrentLineIndex = currentLineIndex;
+    }
+
+    public RulerStyle getStyle() {
+        return mStyle;
+    }
+
+    /**
+     * 设置绑定时使用的样式
+     *
+     * @param style 样式，null 表示保持控件当前的样式
+     */
+    public void setStyle(RulerStyle style) {
+        this.mStyle = style;
+    }
+
+    public ScaleModel getScaleModel() {
+        return mScaleModel;
+    }
+
+    /**
+     * 设置绑定时使用的刻度模型
+     *
+     * @param scaleModel 刻度模型，null 表示按照 {@link #getLines()}、{@link #getStartLineValue()}、
+     *                   {@link #getSetupValue()} 生成线性刻度
+     */
+    public void setScaleModel(ScaleModel scaleModel) {
+        this.mScaleModel = scaleModel;
+        if (scaleModel != null) mLines = scaleModel.getCount() - 1;
+    }
+}
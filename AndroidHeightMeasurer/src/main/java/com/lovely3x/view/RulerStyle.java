@@ -0,0 +1,455 @@
+package com.lovely3x.view;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Color;
+import android.util.AttributeSet;
+import android.util.DisplayMetrics;
+import android.util.SparseArray;
+import android.util.TypedValue;
+
+import java.util.WeakHashMap;
+
+/**
+ * 刻度尺的样式
+ * 保存解析好的颜色、尺寸等属性，创建之后不可修改，多个 {@link HeightView} 可以共享同一个对象，
+ * 通过 {@link HeightView#setStyle(RulerStyle)} 一次性切换
+ * <p>
+ * {@link #obtain(Context, AttributeSet, int)} 会按照主题和style资源缓存解析的结果，配置变化后重新解析，
+ * 布局中只通过 style="@style/xxx" 设置属性的刻度尺在同一个主题下只会解析一次
+ */
+public final class RulerStyle {
+
+    /**
+     * 已经解析的样式，按照主题和style资源缓存，同时记录解析时的配置
+     * 主题被回收后对应的缓存也会被回收
+     */
+    private static final WeakHashMap<Resources.Theme, ThemeStyles> sCache = new WeakHashMap<>();
+
+    private final int mOrientation;
+    private final int mBackgroundColor;
+    private final int mTextColor;
+    private final float mTextSize;
+    private final int mHighlightColor;
+    private final float mHighlightWidth;
+    private final int mMarkerColor;
+    private final int mMarkerWidth;
+    private final int mMarkerSpace;
+    private final int mLineColor;
+    private final float mLineWidth;
+    private final float mShortLineLength;
+    private final float mMidLineLength;
+    private final float mLongLineLength;
+    private final int mSpace;
+    private final float mRatio;
+
+    /**
+     * 以下属性是控件的初始状态，只在创建控件时使用，{@link HeightView#setStyle(RulerStyle)} 不会修改它们
+     */
+    private final int mLines;
+    private final int mStartLineValue;
+    private final boolean mCircular;
+    private final boolean mZoomEnabled;
+    private final int mMarkerDrawableRes;
+
+    private RulerStyle(Builder builder) {
+        mOrientation = builder.mOrientation;
+        mBackgroundColor = builder.mBackgroundColor;
+        mTextColor = builder.mTextColor;
+        mTextSize = builder.mTextSize;
+        mHighlightColor = builder.mHighlightColor;
+        mHighlightWidth = builder.mHighlightWidth;
+        mMarkerColor = builder.mMarkerColor;
+        mMarkerWidth = builder.mMarkerWidth;
+        mMarkerSpace = builder.mMarkerSpace;
+        mLineColor = builder.mLineColor;
+        mLineWidth = builder.mLineWidth;
+        mShortLineLength = builder.mShortLineLength;
+        mMidLineLength = builder.mMidLineLength;
+        mLongLineLength = builder.mLongLineLength;
+        mSpace = builder.mSpace;
+        mRatio = builder.mRatio;
+        mLines = builder.mLines;
+        mStartLineValue = builder.mStartLineValue;
+        mCircular = builder.mCircular;
+        mZoomEnabled = builder.mZoomEnabled;
+        mMarkerDrawableRes = builder.mMarkerDrawableRes;
+    }
+
+    /**
+     * 获取布局属性对应的样式
+     * 属性只来自style资源和主题时使用缓存，直接写在布局元素上的属性每次都需要解析
+     *
+     * @param context      上下文
+     * @param attrs        布局属性，可以为null
+     * @param defStyleAttr 默认样式属性
+     * @return 解析好的样式
+     */
+    public static RulerStyle obtain(Context context, AttributeSet attrs, int defStyleAttr) {
+        if (attrs != null && hasDirectAttributes(attrs)) return parse(context, attrs, defStyleAttr);
+        if (defStyleAttr != 0) return parse(context, attrs, defStyleAttr);
+
+        final Resources.Theme theme = context.getTheme();
+        final Configuration configuration = context.getResources().getConfiguration();
+        final int styleRes = attrs == null ? 0 : attrs.getStyleAttribute();
+        synchronized (sCache) {
+            ThemeStyles styles = sCache.get(theme);
+            //主题在配置变化(字体缩放、密度、横竖屏等)后继续使用时，解析出的尺寸和资源都可能不同
+            if (styles != null && !styles.configuration.equals(configuration)) styles = null;
+            RulerStyle style = styles == null ? null : styles.styles.get(styleRes);
+            if (style != null) return style;
+            style = parse(context, attrs, 0);
+            if (styles == null) {
+                styles = new ThemeStyles(configuration);
+                sCache.put(theme, styles);
+            }
+            styles.styles.put(styleRes, style);
+            return style;
+        }
+    }
+
+    /**
+     * 清空缓存，比如动态修改了主题中的属性之后
+     */
+    public static void clearCache() {
+        synchronized (sCache) {
+            sCache.clear();
+        }
+    }
+
+    /**
+     * 同一个主题下解析的样式以及解析时的配置
+     */
+    private static final class ThemeStyles {
+        final Configuration configuration;
+        final SparseArray<RulerStyle> styles = new SparseArray<>();
+
+        ThemeStyles(Configuration configuration) {
+            this.configuration = new Configuration(configuration);
+        }
+    }
+
+    /**
+     * 布局元素上是否直接写了刻度尺的属性
+     * 只比较属性名的资源id，不需要解析属性的值
+     */
+    private static boolean hasDirectAttributes(AttributeSet attrs) {
+        final int[] styleable = R.styleable.HeightView;
+        for (int i = attrs.getAttributeCount() - 1; i >= 0; i--) {
+            int name = attrs.getAttributeNameResource(i);
+            if (name == 0) continue;
+            for (int attr : styleable) {
+                if (attr == name) return true;
+            }
+        }
+        return false;
+    }
+
+    private static RulerStyle parse(Context context, AttributeSet attrs, int defStyleAttr) {
+        Builder builder = new Builder(context);
+        if (attrs == null && defStyleAttr == 0) return builder.build();
+        TypedArray attributes = context.obtainStyledAttributes(attrs, R.styleable.HeightView, defStyleAttr, 0);
+        builder.mOrientation = attributes.getInt(R.styleable.HeightView_orientation, builder.mOrientation);
+        builder.mBackgroundColor = attributes.getColor(R.styleable.HeightView_backgroundColor, builder.mBackgroundColor);
+        builder.mTextColor = attributes.getColor(R.styleable.HeightView_textColor, builder.mTextColor);
+        builder.mTextSize = attributes.getDimension(R.styleable.HeightView_textSize, builder.mTextSize);
+        builder.mHighlightColor = attributes.getColor(R.styleable.HeightView_highlightColor, builder.mHighlightColor);
+        builder.mHighlightWidth = attributes.getDimension(R.styleable.HeightView_highlightLineWidth, builder.mHighlightWidth);
+        builder.mMarkerColor = attributes.getColor(R.styleable.HeightView_markerColor, builder.mMarkerColor);
+        builder.mMarkerWidth = attributes.getDimensionPixelOffset(R.styleable.HeightView_markerSize, builder.mMarkerWidth);
+        builder.mMarkerSpace = attributes.getDimensionPixelOffset(R.styleable.HeightView_markerSpace, builder.mMarkerSpace);
+        builder.mLineColor = attributes.getColor(R.styleable.HeightView_lineColor, builder.mLineColor);
+        builder.mLineWidth = attributes.getDimension(R.styleable.HeightView_lineWidth, builder.mLineWidth);
+        builder.mShortLineLength = attributes.getDimension(R.styleable.HeightView_shortLine, builder.mShortLineLength);
+        builder.mMidLineLength = attributes.getDimension(R.styleable.HeightView_midLine, builder.mMidLineLength);
+        builder.mLongLineLength = attributes.getDimension(R.styleable.HeightView_longLine, builder.mLongLineLength);
+        builder.mRatio = attributes.getFloat(R.styleable.HeightView_ratio, builder.mRatio);
+        builder.mLines = attributes.getInt(R.styleable.HeightView_lines, builder.mLines);
+        builder.mStartLineValue = attributes.getInt(R.styleable.HeightView_startLineValue, builder.mStartLineValue);
+        builder.mCircular = attributes.getBoolean(R.styleable.HeightView_circular, builder.mCircular);
+        builder.mZoomEnabled = attributes.getBoolean(R.styleable.HeightView_zoomEnabled, builder.mZoomEnabled);
+        builder.mMarkerDrawableRes = attributes.getResourceId(R.styleable.HeightView_markerDrawable, 0);
+        attributes.recycle();
+        return builder.build();
+    }
+
+    public int getOrientation() {
+        return mOrientation;
+    }
+
+    public int getBackgroundColor() {
+        return mBackgroundColor;
+    }
+
+    public int getTextColor() {
+        return mTextColor;
+    }
+
+    public float getTextSize() {
+        return mTextSize;
+    }
+
+    public int getHighlightColor() {
+        return mHighlightColor;
+    }
+
+    public float getHighlightWidth() {
+        return mHighlightWidth;
+    }
+
+    public int getMarkerColor() {
+        return mMarkerColor;
+    }
+
+    public int getMarkerWidth() {
+        return mMarkerWidth;
+    }
+
+    public int getMarkerSpace() {
+        return mMarkerSpace;
+    }
+
+    public int getLineColor() {
+        return mLineColor;
+    }
+
+    public float getLineWidth() {
+        return mLineWidth;
+    }
+
+    public float getShortLineLength() {
+        return mShortLineLength;
+    }
+
+    /**
+     * 中线的长度，0 表示和短线一样长
+     */
+    public float getMidLineLength() {
+        return mMidLineLength;
+    }
+
+    public float getLongLineLength() {
+        return mLongLineLength;
+    }
+
+    public int getSpace() {
+        return mSpace;
+    }
+
+    public float getRatio() {
+        return mRatio;
+    }
+
+    public int getLines() {
+        return mLines;
+    }
+
+    public int getStartLineValue() {
+        return mStartLineValue;
+    }
+
+    public boolean isCircular() {
+        return mCircular;
+    }
+
+    public boolean isZoomEnabled() {
+        return mZoomEnabled;
+    }
+
+    /**
+     * 标记物的资源id，0 表示使用默认的三角形
+     * Drawable 有自己的状态，不能在多个控件之间共享，所以只保存资源id
+     */
+    public int getMarkerDrawableRes() {
+        return mMarkerDrawableRes;
+    }
+
+    /**
+     * 样式构建器
+     */
+    public static final class Builder {
+
+        private int mOrientation = HeightView.VERTICAL;
+        private int mBackgroundColor = Color.parseColor("#03b7ee");
+        private int mTextColor = Color.WHITE;
+        private float mTextSize;
+        private int mHighlightColor = Color.parseColor("#1e7d9e");
+        private float mHighlightWidth;
+        private int mMarkerColor = Color.WHITE;
+        private int mMarkerWidth = 45;
+        private int mMarkerSpace = 20;
+        private int mLineColor = Color.WHITE;
+        private float mLineWidth;
+        private float mShortLineLength;
+        private float mMidLineLength;
+        private float mLongLineLength;
+        private int mSpace;
+        private float mRatio = HeightView.DEFAULT_RATIO;
+        private int mLines = 240;
+        private int mStartLineValue = 0;
+        private boolean mCircular;
+        private boolean mZoomEnabled;
+        private int mMarkerDrawableRes;
+
+        /**
+         * 使用默认的样式
+         */
+        public Builder(Context context) {
+            DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+            mTextSize = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 12, metrics);
+            mShortLineLength = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 12, metrics);
+            mLongLineLength = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 20, metrics);
+            mHighlightWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 1.5f, metrics);
+            mLineWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 1, metrics);
+            mSpace = (int) (metrics.density * 7);
+        }
+
+        /**
+         * 以已有的样式为基础
+         */
+        public Builder(RulerStyle style) {
+            mOrientation = style.mOrientation;
+            mBackgroundColor = style.mBackgroundColor;
+            mTextColor = style.mTextColor;
+            mTextSize = style.mTextSize;
+            mHighlightColor = style.mHighlightColor;
+            mHighlightWidth = style.mHighlightWidth;
+            mMarkerColor = style.mMarkerColor;
+            mMarkerWidth = style.mMarkerWidth;
+            mMarkerSpace = style.mMarkerSpace;
+            mLineColor = style.mLineColor;
+            mLineWidth = style.mLineWidth;
+            mShortLineLength = style.mShortLineLength;
+            mMidLineLength = style.mMidLineLength;
+            mLongLineLength = style.mLongLineLength;
+            mSpace = style.mSpace;
+            mRatio = style.mRatio;
+            mLines = style.mLines;
+            mStartLineValue = style.mStartLineValue;
+            mCircular = style.mCircular;
+            mZoomEnabled = style.mZoomEnabled;
+            mMarkerDrawableRes = style.mMarkerDrawableRes;
+        }
+
+        public Builder setOrientation(int orientation) {
+            this.mOrientation = orientation;
+            return this;
+        }
+
+        public Builder setBackgroundColor(int backgroundColor) {
+            this.mBackgroundColor = backgroundColor;
+            return this;
+        }
+
+        public Builder setTextColor(int textColor) {
+            this.mTextColor = textColor;
+            return this;
+        }
+
+        public Builder setTextSize(float textSize) {
+            this.mTextSize = textSize;
+            return this;
+        }
+
+        public Builder setHighlightColor(int highlightColor) {
+            this.mHighlightColor = highlightColor;
+            return this;
+        }
+
+        public Builder setHighlightWidth(float highlightWidth) {
+            this.mHighlightWidth = highlightWidth;
+            return this;
+        }
+
+        public Builder setMarkerColor(int markerColor) {
+            this.mMarkerColor = markerColor;
+            return this;
+        }
+
+        public Builder setMarkerWidth(int markerWidth) {
+            this.mMarkerWidth = markerWidth;
+            return this;
+        }
+
+        public Builder setMarkerSpace(int markerSpace) {
+            this.mMarkerSpace = markerSpace;
+            return this;
+        }
+
+        public Builder setLineColor(int lineColor) {
+            this.mLineColor = lineColor;
+            return this;
+        }
+
+        public Builder setLineWidth(float lineWidth) {
+            this.mLineWidth = lineWidth;
+            return this;
+        }
+
+        public Builder setShortLineLength(float shortLineLength) {
+            this.mShortLineLength = shortLineLength;
+            return this;
+        }
+
+        public Builder setMidLineLength(float midLineLength) {
+            this.mMidLineLength = midLineLength;
+            return this;
+        }
+
+        public Builder setLongLineLength(float longLineLength) {
+            this.mLongLineLength = longLineLength;
+            return this;
+        }
+
+        public Builder setSpace(int space) {
+            this.mSpace = space;
+            return this;
+        }
+
+        public Builder setRatio(float ratio) {
+            this.mRatio = ratio;
+            return this;
+        }
+
+        public Builder setLines(int lines) {
+            this.mLines = lines;
+            return this;
+        }
+
+        public Builder setStartLineValue(int startLineValue) {
+            this.mStartLineValue = startLineValue;
+            return this;
+        }
+
+        public Builder setCircular(boolean circular) {
+            this.mCircular = circular;
+            return this;
+        }
+
+        public Builder setZoomEnabled(boolean zoomEnabled) {
+            this.mZoomEnabled = zoomEnabled;
+            return this;
+        }
+
+        public Builder setMarkerDrawableRes(int markerDrawableRes) {
+            this.mMarkerDrawableRes = markerDrawableRes;
+            return this;
+        }
+
+        /**
+         * 检查属性并创建样式
+         */
+        public RulerStyle build() {
+            if (mOrientation != HeightView.HORIZONTAL && mOrientation != HeightView.VERTICAL) {
+                throw new IllegalArgumentException("unknown orientation " + mOrientation);
+            }
+            if (mMidLineLength < 0) throw new IllegalArgumentException("midLineLength must be >= 0");
+            if (mSpace <= 0) throw new IllegalArgumentException("space must be > 0");
+            if (mMarkerWidth < 0) throw new IllegalArgumentException("markerWidth must be >= 0");
+            if (mLines < 0) throw new IllegalArgumentException("lines must be >= 0");
+            return new RulerStyle(this);
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.lovely3x.view;
+
+/**
+ * 组合刻度尺 {@link MultiRulerView} 中的一条刻度
+ * 每条刻度有自己的刻度模型、选中的刻度、滚动状态和监听器，外观和画笔由宿主统一管理
+ */
+public class RulerTrack {
+
+    /**
+     * 滚动器使用的int坐标的范围
+     */
+    private static final int SCROLLER_RANGE = Integer.MAX_VALUE >> 1;
+
+    /**
+     * 选中的刻度变化监听器
+     */
+    public interface OnTrackValueChangedListener {
+        /**
+         * 选中的刻度发生了变化
+         *
+         * @param track 发生变化的刻度
+         * @param index 选中的刻度下标
+         * @param value 选中的值
+         */
+        void onTrackValueChanged(RulerTrack track, int index, double value);
+    }
+
+    private ScaleModel mScaleModel;
+
+    /**
+     * 每隔多少个刻度画一根长线
+     */
+    private int mOutSideLine = 10;
+
+    /**
+     * 刻度的间距，0 表示使用宿主样式中的间距
+     */
+    private int mSpace;
+
+    /**
+     * 当前的位置，单位像素，0 对应刻度 0
+     */
+    private double mPosition;
+
+    /**
+     * 滚动器int坐标的原点
+     */
+    private double mScrollAnchor;
+
+    private int mCurrentIndex;
+
+    /**
+     * 滚动器是否刚刚在运动，停下后需要吸附
+     */
+    private boolean mScrolling;
+
+    private OverScroller mScroller;
+
+    private MultiRulerView mHost;
+
+    private OnTrackValueChangedListener mOnTrackValueChangedListener;
+
+    /**
+     * 宿主样式中的间距
+     */
+    private int mDefaultSpace = 1;
+
+    /**
+     * 在宿主中交叉轴方向上占用的范围，由宿主在布局时设置
+     */
+    private int mSlotStart;
+    private int mSlotEnd;
+
+    /**
+     * 最宽的刻度文本的宽度，小于0表示需要重新测量
+     */
+    private float mMaxTextWidth = -1;
+
+    /**
+     * @param scaleModel 刻度模型
+     */
+    public RulerTrack(ScaleModel scaleModel) {
+        setScaleModel(scaleModel);
+    }
+
+    public ScaleModel getScaleModel() {
+        return mScaleModel;
+    }
+
+    /**
+     * 设置刻度模型，选中的刻度会被限制在新的范围内
+     */
+    public void setScaleModel(ScaleModel scaleModel) {
+        if (scaleModel == null) throw new IllegalArgumentException("scaleModel must not be null");
+        this.mScaleModel = scaleModel;
+        mMaxTextWidth = -1;
+        if (mCurrentIndex > getLines()) mCurrentIndex = getLines();
+        mPosition = clampPosition(mPosition);
+        if (mHost != null) mHost.onTrackChanged(true);
+    }
+
+    public int getOutSideLine() {
+        return mOutSideLine;
+    }
+
+    public void setOutSideLine(int outSideLine) {
+        if (outSideLine <= 0) throw new IllegalArgumentException("outSideLine must be > 0");
+        this.mOutSideLine = outSideLine;
+        mMaxTextWidth = -1;
+        if (mHost != null) mHost.onTrackChanged(true);
+    }
+
+    public int getSpace() {
+        return mSpace;
+    }
+
+    /**
+     * 设置刻度的间距，不同单位的刻度可以使用不同的间距
+     *
+     * @param space 间距，单位像素，0 表示使用宿主样式中的间距
+     */
+    public void setSpace(int space) {
+        if (space < 0) throw new IllegalArgumentException("space must be >= 0");
+        this.mSpace = space;
+        //保持选中的刻度不变
+        mPosition = indexToPosition(mCurrentIndex);
+        if (mHost != null) mHost.onTrackChanged(true);
+    }
+
+    public int getCurrentIndex() {
+        return mCurrentIndex;
+    }
+
+    /**
+     * 选中指定的刻度
+     */
+    public void setCurrentIndex(int index) {
+        if (mScroller != null && !mScroller.isFinished()) mScroller.abortAnimation();
+        mScrolling = false;
+        mPosition = indexToPosition(Math.max(0, Math.min(getLines(), index)));
+        updateIndex(false);
+        if (mHost != null) mHost.onTrackChanged(false);
+    }
+
+    /**
+     * 获取当前选中的值
+     */
+    public double getCurrentValue() {
+        return mScaleModel.getValue(mCurrentIndex);
+    }
+
+    /**
+     * 选中和指定值最接近的刻度
+     */
+    public void setCurrentValue(double value) {
+        setCurrentIndex(mScaleModel.indexOf(value));
+    }
+
+    public MultiRulerView getHost() {
+        return mHost;
+    }
+
+    public void setOnTrackValueChangedListener(OnTrackValueChangedListener listener) {
+        this.mOnTrackValueChangedListener = listener;
+    }
+
+    public OnTrackValueChangedListener getOnTrackValueChangedListener() {
+        return mOnTrackValueChangedListener;
+    }
+
+    void attach(MultiRulerView host) {
+        if (mHost != null && mHost != host) throw new IllegalStateException("track already added to another view");
+        mHost = host;
+        if (mScroller == null) mScroller = new OverScroller(host.getContext());
+    }
+
+    void detach() {
+        if (mScroller != null) mScroller.abortAnimation();
+        mScrolling = false;
+        mHost = null;
+    }
+
+    /**
+     * 设置宿主样式中的间距
+     */
+    void setDefaultSpace(int defaultSpace) {
+        this.mDefaultSpace = defaultSpace;
+    }
+
+    /**
+     * 设置在宿主中交叉轴方向上占用的范围
+     */
+    void setLayoutSlot(int start, int end) {
+        this.mSlotStart = start;
+        this.mSlotEnd = end;
+    }
+
+    int getSlotStart() {
+        return mSlotStart;
+    }
+
+    int getSlotEnd() {
+        return mSlotEnd;
+    }
+
+    /**
+     * 获取缓存的最宽的刻度文本的宽度，小于0表示需要重新测量
+     */
+    float getMaxTextWidth() {
+        return mMaxTextWidth;
+    }
+
+    void setMaxTextWidth(float maxTextWidth) {
+        this.mMaxTextWidth = maxTextWidth;
+    }
+
+    /**
+     * 最大的刻度下标
+     */
+    int getLines() {
+        return mScaleModel.getCount() - 1;
+    }
+
+    float getSpacing() {
+        return mSpace > 0 ? mSpace : mDefaultSpace;
+    }
+
+    double getPosition() {
+        return mPosition;
+    }
+
+    double getContentLength() {
+        return (double) getLines() * getSpacing();
+    }
+
+    double indexToPosition(int index) {
+        return (double) index * getSpacing();
+    }
+
+    private int positionToIndex(double position) {
+        long index = (long) Math.floor(position / getSpacing() + 0.5);
+        return (int) Math.max(0, Math.min(getLines(), index));
+    }
+
+    private double clampPosition(double position) {
+        return Math.max(0, Math.min(getContentLength(), position));
+    }
+
+    /**
+     * 手指按下，停止正在进行的滚动
+     */
+    void stopScroll() {
+        if (mScroller != null && !mScroller.isFinished()) mScroller.abortAnimation();
+        mScrolling = false;
+    }
+
+    /**
+     * 拖动
+     *
+     * @param delta 位置的变化量
+     * @return 位置是否发生了变化
+     */
+    boolean performDrag(double delta) {
+        double target = clampPosition(mPosition + delta);
+        if (target == mPosition) return false;
+        mPosition = target;
+        updateIndex(false);
+        return true;
+    }
+
+    /**
+     * 以指定的速度开始fling，滚动器只在以当前位置为原点的int坐标中运动
+     *
+     * @param velocity 位置变化的速度，单位 px/s
+     */
+    void fling(int velocity) {
+        mScrollAnchor = mPosition;
+        mScroller.fling(0, 0, velocity, 0,
+                toScrollerOffset(-mPosition), toScrollerOffset(getContentLength() - mPosition), 0, 0, 100, 0);
+        mScrolling = true;
+    }
+
+    /**
+     * 推进滚动动画
+     *
+     * @return 位置是否发生了变化
+     */
+    boolean computeScroll() {
+        if (mScroller == null) return false;
+        if (mScroller.computeScrollOffset()) {
+            mScrolling = true;
+            mPosition = mScrollAnchor + mScroller.getCurrX();
+            updateIndex(false);
+            return true;
+        }
+        if (mScrolling) {
+            mScrolling = false;
+            return updateIndex(true);
+        }
+        return false;
+    }
+
+    /**
+     * 是否还有没有结束的滚动动画
+     */
+    boolean isAnimating() {
+        return mScrolling || (mScroller != null && !mScroller.isFinished());
+    }
+
+    /**
+     * 更新选中的刻度
+     *
+     * @param adjustPosition 是否吸附到选中的刻度上，吸附通过一段短暂的滚动完成
+     * @return 是否开始了吸附的滚动
+     */
+    boolean updateIndex(boolean adjustPosition) {
+        final int previous = mCurrentIndex;
+        mCurrentIndex = positionToIndex(mPosition);
+        boolean moved = false;
+        double expect = indexToPosition(mCurrentIndex);
+        if (adjustPosition && expect != mPosition && mScroller != null) {
+            //滚动器只处理整数像素，不足一个像素的部分直接并到原点上，保证吸附结束时正好落在刻度上
+            int distance = toScrollerOffset(Math.round(expect - mPosition));
+            mScrollAnchor = expect - distance;
+            mPosition = mScrollAnchor;
+            mScroller.startScroll(0, 0, distance, 0);
+            mScrolling = true;
+            moved = true;
+        }
+        if (previous != mCurrentIndex && mOnTrackValueChangedListener != null) {
+            mOnTrackValueChangedListener.onTrackValueChanged(this, mCurrentIndex, mScaleModel.getValue(mCurrentIndex));
+        }
+        return moved;
+    }
+
+    private static int toScrollerOffset(double distance) {
+        return (int) Math.max(-SCROLLER_RANGE, Math.min(SCROLLER_RANGE, distance));
+    }
+}
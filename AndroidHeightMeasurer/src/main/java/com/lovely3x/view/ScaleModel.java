@@ -0,0 +1,144 @@
+package com.lovely3x.view;
+
+import android.graphics.Paint;
+
+/**
+ * 刻度模型
+ * 描述刻度的下标和值之间的对应关系，以及刻度文本的格式
+ * 所有的方法都只使用基本类型，绘制时通过 {@link #formatValue(int, char[])} 把文本写入复用的缓冲区，不产生装箱和对象分配
+ */
+public abstract class ScaleModel {
+
+    /**
+     * 格式化文本需要的最大缓冲区长度
+     */
+    public static final int MAX_LABEL_LENGTH = 32;
+
+    /**
+     * 刻度的数量(包括第0个刻度)
+     */
+    public abstract int getCount();
+
+    /**
+     * 获取指定下标的值
+     *
+     * @param index 刻度下标，范围 [0, {@link #getCount()})
+     */
+    public abstract double getValue(int index);
+
+    /**
+     * 获取和指定值最接近的刻度下标
+     *
+     * @param value 需要查找的值
+     * @return 最接近的下标，范围 [0, {@link #getCount()})
+     */
+    public abstract int indexOf(double value);
+
+    /**
+     * 把指定下标的刻度文本写入缓冲区
+     *
+     * @param index  刻度下标
+     * @param buffer 长度至少为 {@link #MAX_LABEL_LENGTH} 的缓冲区
+     * @return 写入的字符数
+     */
+    public int formatValue(int index, char[] buffer) {
+        return formatDecimal(getValue(index), 0, buffer, 0);
+    }
+
+    /**
+     * 测量最宽的刻度文本的宽度
+     * 默认逐个测量每隔 step 个刻度的文本，只在刻度模型或者文字大小变化后调用一次；
+     * 刻度很多并且能直接算出最宽文本的子类应该重写这个方法
+     *
+     * @param paint  绘制文本的画笔
+     * @param buffer 长度至少为 {@link #MAX_LABEL_LENGTH} 的缓冲区
+     * @param step   每隔多少个刻度显示一个文本
+     * @return 最宽的文本的宽度
+     */
+    public float measureMaxLabelWidth(Paint paint, char[] buffer, int step) {
+        final int count = getCount();
+        float max = 0;
+        for (long index = 0; index < count; index += step) {
+            int length = formatValue((int) index, buffer);
+            max = Math.max(max, paint.measureText(buffer, 0, length));
+        }
+        return max;
+    }
+
+    /**
+     * 把缓冲区中所有的数字换成最宽的数字之后测量宽度
+     * 数字位数相同的文本中这个宽度最大，用来在不遍历刻度的情况下得到最宽文本的宽度
+     *
+     * @param paint  绘制文本的画笔
+     * @param buffer 已经写入文本的缓冲区，数字会被替换
+     * @param length 文本的长度
+     * @return 替换之后的宽度
+     */
+    protected static float measureWithWidestDigits(Paint paint, char[] buffer, int length) {
+        //缓冲区末尾用来逐个测量数字
+        if (length >= buffer.length) return paint.measureText(buffer, 0, length);
+        char widest = '0';
+        float widestWidth = -1;
+        for (char digit = '0'; digit <= '9'; digit++) {
+            buffer[length] = digit;
+            float width = paint.measureText(buffer, length, 1);
+            if (width > widestWidth) {
+                widestWidth = width;
+                widest = digit;
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer[i] >= '0' && buffer[i] <= '9') buffer[i] = widest;
+        }
+        return paint.measureText(buffer, 0, length);
+    }
+
+    /**
+     * 把数值按照固定的小数位数写入缓冲区
+     *
+     * @param value    数值
+     * @param decimals 小数位数
+     * @param buffer   缓冲区
+     * @param offset   开始写入的位置
+     * @return 写入的字符数
+     */
+    protected static int formatDecimal(double value, int decimals, char[] buffer, int offset) {
+        long scale = 1;
+        for (int i = 0; i < decimals; i++) scale *= 10;
+        long scaled = Math.round(value * scale);
+
+        int position = offset;
+        if (scaled < 0) {
+            buffer[position++] = '-';
+            scaled = -scaled;
+        }
+        long integer = scaled / scale;
+        long fraction = scaled % scale;
+
+        position += formatLong(integer, buffer, position);
+        if (decimals > 0) {
+            buffer[position++] = '.';
+            for (int i = decimals - 1; i >= 0; i--) {
+                buffer[position + i] = (char) ('0' + fraction % 10);
+                fraction /= 10;
+            }
+            position += decimals;
+        }
+        return position - offset;
+    }
+
+    /**
+     * 把非负整数写入缓冲区
+     *
+     * @return 写入的字符数
+     */
+    protected static int formatLong(long value, char[] buffer, int offset) {
+        int digits = 1;
+        for (long v = value / 10; v > 0; v /= 10) digits++;
+        for (int i = digits - 1; i >= 0; i--) {
+            buffer[offset + i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return digits;
+    }
+}
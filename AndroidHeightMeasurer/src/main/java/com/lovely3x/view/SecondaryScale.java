@@ -0,0 +1,222 @@
+package com.lovely3x.view;
+
+import android.graphics.Paint;
+
+import java.util.Arrays;
+
+/**
+ * 副刻度
+ * 和主刻度共用同一个滚动位置，绘制在标记物的另一侧，比如主刻度是厘米时副刻度显示英寸，主刻度是千克时副刻度显示磅
+ * 副刻度的值 = 主刻度的值 * factor + offset
+ * <p>
+ * 副刻度在主刻度上的位置保存在按照可见窗口计算的换算表中，滚动时只有可见窗口移出换算表的范围才重新计算，
+ * 绘制时不需要逐个刻度做换算
+ */
+public class SecondaryScale {
+
+    /**
+     * 按照长线间隔的倍数跳过刻度时的倍数，和主刻度的细节层次一致
+     */
+    private static final int[] STEP_MULTIPLIERS = {1, 5};
+
+    private final ScaleModel mModel;
+    private final double mFactor;
+    private final double mOffset;
+    private final int mOutSideLine;
+
+    /**
+     * 换算表：副刻度的下标以及它在主刻度上的小数下标
+     */
+    private int[] mIndices = new int[16];
+    private double[] mFractions = new double[16];
+    private int mCount;
+
+    /**
+     * 换算表对应的主刻度模型、主刻度下标范围和副刻度的步长
+     */
+    private ScaleModel mTablePrimary;
+    private int mTableFirst;
+    private int mTableLast = -1;
+    private int mTableStep;
+
+    /**
+     * 最宽的文本的宽度以及测量时的文字大小
+     */
+    private float mMaxTextWidth;
+    private float mMaxTextWidthTextSize = -1;
+
+    /**
+     * @param model       副刻度的模型
+     * @param factor      主刻度的值换算成副刻度的值的系数，不能为0
+     * @param offset      换算的偏移量
+     * @param outSideLine 副刻度每隔多少个刻度画一根长线并显示文本
+     */
+    public SecondaryScale(ScaleModel model, double factor, double offset, int outSideLine) {
+        if (model == null) throw new IllegalArgumentException("model must not be null");
+        if (factor == 0) throw new IllegalArgumentException("factor must not be 0");
+        if (outSideLine <= 0) throw new IllegalArgumentException("outSideLine must be > 0");
+        this.mModel = model;
+        this.mFactor = factor;
+        this.mOffset = offset;
+        this.mOutSideLine = outSideLine;
+    }
+
+    public ScaleModel getModel() {
+        return mModel;
+    }
+
+    public double getFactor() {
+        return mFactor;
+    }
+
+    public double getOffset() {
+        return mOffset;
+    }
+
+    public int getOutSideLine() {
+        return mOutSideLine;
+    }
+
+    /**
+     * 把主刻度的值换算成副刻度的值
+     */
+    public double convert(double primaryValue) {
+        return primaryValue * mFactor + mOffset;
+    }
+
+    /**
+     * 把副刻度的值换算成主刻度的值
+     */
+    public double invert(double secondaryValue) {
+        return (secondaryValue - mOffset) / mFactor;
+    }
+
+    /**
+     * 确保换算表覆盖指定的主刻度下标范围
+     * 重新计算时向两侧各多算半个窗口，之后在这个范围内滚动都直接复用
+     *
+     * @param primary    主刻度模型
+     * @param first      可见的第一个主刻度
+     * @param last       可见的最后一个主刻度
+     * @param spacing    主刻度的间距，单位像素
+     * @param minSpacing 副刻度之间的最小间距，单位像素，间距更小时跳过一部分副刻度
+     */
+    void update(ScaleModel primary, int first, int last, float spacing, float minSpacing) {
+        final int lines = primary.getCount() - 1;
+        first = Math.max(0, Math.min(lines, first));
+        last = Math.max(first, Math.min(lines, last));
+        final int step = computeStep(primary, first, last, spacing, minSpacing);
+        if (primary == mTablePrimary && step == mTableStep && first >= mTableFirst && last <= mTableLast) return;
+
+        final int margin = (last - first) / 2 + 1;
+        final int tableFirst = Math.max(0, first - margin);
+        final int tableLast = Math.min(lines, last + margin);
+        mTablePrimary = primary;
+        mTableFirst = tableFirst;
+        mTableLast = tableLast;
+        mTableStep = step;
+        mCount = 0;
+
+        int from = secondaryIndexOf(primary.getValue(tableFirst));
+        int to = secondaryIndexOf(primary.getValue(tableLast));
+        if (from > to) {
+            int temp = from;
+            from = to;
+            to = temp;
+        }
+        //对齐到步长上，跳过的刻度在滚动时才不会闪烁
+        for (int j = from - from % step; j <= to; j += step) {
+            double fraction = primaryFraction(primary, invert(mModel.getValue(j)));
+            if (fraction < tableFirst - 1 || fraction > tableLast + 1) continue;
+            if (mCount == mIndices.length) {
+                mIndices = Arrays.copyOf(mIndices, mCount * 2);
+                mFractions = Arrays.copyOf(mFractions, mCount * 2);
+            }
+            mIndices[mCount] = j;
+            mFractions[mCount] = fraction;
+            mCount++;
+        }
+    }
+
+    /**
+     * 换算表的长度
+     */
+    int getTableSize() {
+        return mCount;
+    }
+
+    /**
+     * 换算表中第 k 个副刻度的下标
+     */
+    int getTableIndex(int k) {
+        return mIndices[k];
+    }
+
+    /**
+     * 换算表中第 k 个副刻度在主刻度上的小数下标
+     */
+    double getTableFraction(int k) {
+        return mFractions[k];
+    }
+
+    /**
+     * 主刻度模型或者刻度范围发生了变化，下次绘制时重新计算换算表
+     */
+    void invalidateTable() {
+        mTablePrimary = null;
+        mTableLast = -1;
+    }
+
+    /**
+     * 获取最宽的副刻度文本的宽度，由刻度模型测量，文字大小不变时复用
+     */
+    float getMaxTextWidth(Paint paint, char[] buffer) {
+        if (mMaxTextWidthTextSize != paint.getTextSize()) {
+            mMaxTextWidth = mModel.measureMaxLabelWidth(paint, buffer, mOutSideLine);
+            mMaxTextWidthTextSize = paint.getTextSize();
+        }
+        return mMaxTextWidth;
+    }
+
+    private int secondaryIndexOf(double primaryValue) {
+        return mModel.indexOf(convert(primaryValue));
+    }
+
+    /**
+     * 根据副刻度在屏幕上的平均间距选择步长，按照 1、长线间隔的 1、5、10、50... 倍递增
+     */
+    private int computeStep(ScaleModel primary, int first, int last, float spacing, float minSpacing) {
+        int from = secondaryIndexOf(primary.getValue(first));
+        int to = secondaryIndexOf(primary.getValue(last));
+        long ticks = Math.abs((long) to - from);
+        if (ticks == 0) return 1;
+        double tickSpacing = (last - first) * (double) spacing / ticks;
+        if (tickSpacing >= minSpacing) return 1;
+        final long total = mModel.getCount();
+        for (long base = mOutSideLine; ; base *= 10) {
+            for (int multiplier : STEP_MULTIPLIERS) {
+                long step = base * multiplier;
+                if (step * tickSpacing >= minSpacing || step >= total) {
+                    return (int) Math.min(step, Integer.MAX_VALUE);
+                }
+            }
+        }
+    }
+
+    /**
+     * 主刻度上和指定值对应的小数下标，在相邻的两个刻度之间线性插值
+     */
+    private static double primaryFraction(ScaleModel primary, double value) {
+        final int index = primary.indexOf(value);
+        final double indexValue = primary.getValue(index);
+        if (value == indexValue) return index;
+        int neighbor = index + 1;
+        if (neighbor >= primary.getCount() || (value - indexValue) * (primary.getValue(neighbor) - indexValue) < 0) {
+            neighbor = index - 1;
+        }
+        if (neighbor < 0) return index;
+        final double neighborValue = primary.getValue(neighbor);
+        if (neighborValue == indexValue) return index;
+        return index + (value - indexValue) / (neighborValue - indexValue) * (neighbor - index);
+    }
+}
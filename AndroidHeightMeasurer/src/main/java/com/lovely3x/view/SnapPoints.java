@@ -0,0 +1,158 @@
+package com.lovely3x.view;
+
+import java.util.Arrays;
+
+/**
+ * 磁性吸附点
+ * 比如上一次记录的测量值或者整数值，手指抬起后的吸附和fling的落点在吸附范围内时会被拉向最近的吸附点
+ * <p>
+ * 吸附点保存在排好序的int数组中，查找最近的吸附点是一次二分查找，吸附点再多也不会增加每一帧的开销
+ */
+public class SnapPoints {
+
+    private int[] mIndices = new int[8];
+    private int mCount;
+
+    /**
+     * 吸附范围，单位是刻度
+     */
+    private float mCaptureRadius = 2;
+
+    /**
+     * 吸附强度，0 表示不吸附，1 表示直接落在吸附点上
+     */
+    private float mStrength = 1;
+
+    /**
+     * 添加吸附点，已经存在的会被忽略
+     *
+     * @param index 吸附点所在的刻度下标
+     */
+    public void add(int index) {
+        int slot = Arrays.binarySearch(mIndices, 0, mCount, index);
+        if (slot >= 0) return;
+        slot = -slot - 1;
+        if (mCount == mIndices.length) mIndices = Arrays.copyOf(mIndices, mCount * 2);
+        System.arraycopy(mIndices, slot, mIndices, slot + 1, mCount - slot);
+        mIndices[slot] = index;
+        mCount++;
+    }
+
+    /**
+     * 一次设置所有的吸附点，比逐个添加快
+     *
+     * @param indices 吸附点所在的刻度下标，不需要排序，可以有重复
+     */
+    public void setAll(int[] indices) {
+        if (mIndices.length < indices.length) mIndices = new int[indices.length];
+        System.arraycopy(indices, 0, mIndices, 0, indices.length);
+        Arrays.sort(mIndices, 0, indices.length);
+        //去掉重复的吸附点
+        int count = 0;
+        for (int i = 0; i < indices.length; i++) {
+            if (count == 0 || mIndices[count - 1] != mIndices[i]) mIndices[count++] = mIndices[i];
+        }
+        mCount = count;
+    }
+
+    /**
+     * 移除吸附点
+     */
+    public void remove(int index) {
+        int slot = Arrays.binarySearch(mIndices, 0, mCount, index);
+        if (slot < 0) return;
+        System.arraycopy(mIndices, slot + 1, mIndices, slot, mCount - slot - 1);
+        mCount--;
+    }
+
+    /**
+     * 移除所有的吸附点
+     */
+    public void clear() {
+        mCount = 0;
+    }
+
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * 获取第 i 个吸附点，吸附点按照从小到大排序
+     */
+    public int get(int i) {
+        if (i < 0 || i >= mCount) throw new IndexOutOfBoundsException("index " + i + " count " + mCount);
+        return mIndices[i];
+    }
+
+    public float getCaptureRadius() {
+        return mCaptureRadius;
+    }
+
+    /**
+     * 设置吸附范围
+     *
+     * @param captureRadius 落点和吸附点的距离不超过这个范围时才会被吸引，单位是刻度
+     */
+    public void setCaptureRadius(float captureRadius) {
+        if (captureRadius < 0) throw new IllegalArgumentException("captureRadius must be >= 0");
+        this.mCaptureRadius = captureRadius;
+    }
+
+    public float getStrength() {
+        return mStrength;
+    }
+
+    /**
+     * 设置吸附强度
+     *
+     * @param strength 范围 [0, 1]，落点向吸附点移动的比例，1 表示直接落在吸附点上
+     */
+    public void setStrength(float strength) {
+        if (strength < 0 || strength > 1) throw new IllegalArgumentException("strength must be in [0, 1]");
+        this.mStrength = strength;
+    }
+
+    /**
+     * 计算被吸引后的落点
+     *
+     * @param index  原来的落点，单位是刻度，可以是小数
+     * @param period 循环模式下一圈的刻度数量，首尾相接处的吸附点也能吸引落点；非循环模式传 0
+     * @return 被吸引后的落点，不在任何吸附点的范围内时原样返回
+     */
+    public double attract(double index, long period) {
+        if (mCount == 0 || mStrength == 0) return index;
+        double wrapped = period > 0 ? index - Math.floor(index / period) * period : index;
+        double delta = nearestDelta(wrapped);
+        if (period > 0) {
+            //首尾相接处：第一个吸附点在下一圈，最后一个吸附点在上一圈
+            double next = mIndices[0] + period - wrapped;
+            double previous = mIndices[mCount - 1] - period - wrapped;
+            if (Math.abs(next) < Math.abs(delta)) delta = next;
+            if (Math.abs(previous) < Math.abs(delta)) delta = previous;
+        }
+        if (Math.abs(delta) > mCaptureRadius) return index;
+        return index + delta * mStrength;
+    }
+
+    /**
+     * 二分查找最近的吸附点
+     *
+     * @return 最近的吸附点减去 index
+     */
+    private double nearestDelta(double index) {
+        int low = 0;
+        int high = mCount - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mIndices[mid] < index) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        //low 是第一个不小于 index 的吸附点(或者最后一个)，最近的吸附点是它或者它前面一个
+        double delta = mIndices[low] - index;
+        if (low > 0 && index - mIndices[low - 1] < Math.abs(delta)) delta = mIndices[low - 1] - index;
+        return delta;
+    }
+}
@@ -0,0 +1,53 @@
+package com.lovely3x.view;
+
+/**
+ * 可以暂停的时钟
+ * 暂停期间时间停止，恢复后扣除暂停的时长，按照这个时钟计算的滚动会从暂停的位置继续
+ */
+final class SuspendableClock implements AnimationClock {
+
+    private AnimationClock mSource = AnimationClock.SYSTEM;
+
+    /**
+     * 比时间源落后的时长：累计暂停的时长，加上切换时间源时为了保持连续做的换算
+     */
+    private long mPausedDuration;
+
+    /**
+     * 暂停开始的时间，没有暂停时为 -1
+     */
+    private long mPauseStart = -1;
+
+    @Override
+    public long currentAnimationTimeMillis() {
+        long now = mPauseStart >= 0 ? mPauseStart : mSource.currentAnimationTimeMillis();
+        return now - mPausedDuration;
+    }
+
+    /**
+     * 设置真实的时间源
+     * 偏移量换算到新的时间源上，切换前后返回的时间保持连续，正在进行的滚动不会跳动，暂停状态也会保留
+     */
+    void setSource(AnimationClock source) {
+        if (mSource == source) return;
+        final long time = currentAnimationTimeMillis();
+        final long now = source.currentAnimationTimeMillis();
+        mSource = source;
+        mPausedDuration = now - time;
+        if (mPauseStart >= 0) mPauseStart = now;
+    }
+
+    void pause() {
+        if (mPauseStart < 0) mPauseStart = mSource.currentAnimationTimeMillis();
+    }
+
+    void resume() {
+        if (mPauseStart < 0) return;
+        mPausedDuration += mSource.currentAnimationTimeMillis() - mPauseStart;
+        mPauseStart = -1;
+    }
+
+    boolean isPaused() {
+        return mPauseStart >= 0;
+    }
+}
@@ -0,0 +1,56 @@
+package com.lovely3x.view;
+
+import android.graphics.Paint;
+
+/**
+ * 刻度的样式规则
+ * 比如给长线换一种颜色、把有效范围之外的刻度画得淡一些
+ * <p>
+ * 规则只需要给每根刻度返回一个画笔槽位，绘制时同一个槽位的刻度合并成一次 drawLines，
+ * 每一帧的绘制调用次数只和槽位的数量有关，和可见的刻度数量无关
+ */
+public interface TickStyler {
+
+    /**
+     * 长线，每隔 {@link HeightView#getOutSideLine()} 个刻度一根
+     */
+    int LEVEL_MAJOR = 0;
+    /**
+     * 中线，每隔 {@link HeightView#getMidLineInterval()} 个刻度一根
+     */
+    int LEVEL_MID = 1;
+    /**
+     * 短线
+     */
+    int LEVEL_MINOR = 2;
+
+    /**
+     * 不绘制这根刻度
+     */
+    int SLOT_HIDDEN = -1;
+
+    /**
+     * 画笔槽位的数量，槽位从 0 开始编号
+     */
+    int getSlotCount();
+
+    /**
+     * 获取槽位对应的画笔
+     * 每一帧每个用到的槽位都会调用一次，应该返回提前创建好的画笔
+     *
+     * @param slot         槽位
+     * @param defaultPaint 控件默认的刻度画笔，可以直接返回它
+     * @return 绘制这个槽位的刻度使用的画笔，必须是 STROKE 样式
+     */
+    Paint getPaint(int slot, Paint defaultPaint);
+
+    /**
+     * 获取刻度使用的槽位
+     * 每一帧每根可见的刻度都会调用一次，不要在这里创建对象
+     *
+     * @param index 刻度下标
+     * @param level 刻度的层级，{@link #LEVEL_MAJOR}、{@link #LEVEL_MID} 或者 {@link #LEVEL_MINOR}
+     * @return 槽位，{@link #SLOT_HIDDEN} 表示不绘制这根刻度
+     */
+    int getSlot(int index, int level);
+}
@@ -0,0 +1,167 @@
+package com.lovely3x.view;
+
+import android.view.MotionEvent;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * 触摸事件记录器
+ * 把 MotionEvent 流(包括历史采样点和时间戳)编码成紧凑的二进制数据，
+ * 用 {@link TouchReplayer} 可以在受控的时钟下原样回放
+ * <p>
+ * 格式：
+ * <pre>
+ * header : magic(int) version(byte)
+ * event  : action(varint) eventTimeDelta(varlong) downTimeOffset(varlong)
+ *          pointerCount(varint) historySize(varint)
+ *          pointerId(varint) * pointerCount
+ *          [timeOffset(varlong) (x(float) y(float)) * pointerCount] * historySize
+ *          (x(float) y(float)) * pointerCount
+ * </pre>
+ * 时间都用相对值保存：eventTimeDelta 相对于上一个事件，downTimeOffset 和 timeOffset 相对于本事件的时间
+ */
+public class TouchRecorder {
+
+    /**
+     * 文件头 "HVTR"
+     */
+    static final int MAGIC = 0x48565452;
+
+    /**
+     * 格式版本
+     */
+    static final int VERSION = 1;
+
+    /**
+     * 文件头的长度
+     */
+    static final int HEADER_SIZE = 5;
+
+    private byte[] mBuffer;
+    private int mLength;
+    private int mEventCount;
+    private long mLastEventTime;
+
+    public TouchRecorder() {
+        this(4096);
+    }
+
+    /**
+     * @param initialCapacity 初始的缓冲区大小，单位字节
+     */
+    public TouchRecorder(int initialCapacity) {
+        mBuffer = new byte[Math.max(16, initialCapacity)];
+        reset();
+    }
+
+    /**
+     * 清空已经记录的数据
+     */
+    public void reset() {
+        mLength = 0;
+        mEventCount = 0;
+        mLastEventTime = 0;
+        writeInt(MAGIC);
+        writeByte(VERSION);
+    }
+
+    /**
+     * 记录一个事件
+     *
+     * @param event 需要记录的事件，调用后可以立即回收
+     */
+    public void record(MotionEvent event) {
+        final int pointerCount = event.getPointerCount();
+        final int historySize = event.getHistorySize();
+        final long eventTime = event.getEventTime();
+
+        writeVarLong(event.getAction());
+        writeVarLong(eventTime - mLastEventTime);
+        writeVarLong(eventTime - event.getDownTime());
+        writeVarLong(pointerCount);
+        writeVarLong(historySize);
+        for (int p = 0; p < pointerCount; p++) {
+            writeVarLong(event.getPointerId(p));
+        }
+        for (int h = 0; h < historySize; h++) {
+            writeVarLong(eventTime - event.getHistoricalEventTime(h));
+            for (int p = 0; p < pointerCount; p++) {
+                writeFloat(event.getHistoricalX(p, h));
+                writeFloat(event.getHistoricalY(p, h));
+            }
+        }
+        for (int p = 0; p < pointerCount; p++) {
+            writeFloat(event.getX(p));
+            writeFloat(event.getY(p));
+        }
+
+        mLastEventTime = eventTime;
+        mEventCount++;
+    }
+
+    /**
+     * 已经记录的事件数量
+     */
+    public int getEventCount() {
+        return mEventCount;
+    }
+
+    /**
+     * 已经记录的数据长度，单位字节
+     */
+    public int getLength() {
+        return mLength;
+    }
+
+    /**
+     * 复制已经记录的数据
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(mBuffer, mLength);
+    }
+
+    /**
+     * 把已经记录的数据写入到输出流中
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(mBuffer, 0, mLength);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (mLength + extra > mBuffer.length) {
+            mBuffer = Arrays.copyOf(mBuffer, Math.max(mBuffer.length * 2, mLength + extra));
+        }
+    }
+
+    private void writeByte(int value) {
+        ensureCapacity(1);
+        mBuffer[mLength++] = (byte) value;
+    }
+
+    private void writeInt(int value) {
+        ensureCapacity(4);
+        mBuffer[mLength++] = (byte) (value >>> 24);
+        mBuffer[mLength++] = (byte) (value >>> 16);
+        mBuffer[mLength++] = (byte) (value >>> 8);
+        mBuffer[mLength++] = (byte) value;
+    }
+
+    private void writeFloat(float value) {
+        writeInt(Float.floatToIntBits(value));
+    }
+
+    /**
+     * 写入变长整数，负数使用zigzag编码
+     */
+    private void writeVarLong(long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        ensureCapacity(10);
+        while ((zigzag & ~0x7FL) != 0) {
+            mBuffer[mLength++] = (byte) ((zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        mBuffer[mLength++] = (byte) zigzag;
+    }
+}
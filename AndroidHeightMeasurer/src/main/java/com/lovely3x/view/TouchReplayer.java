@@ -0,0 +1,320 @@
+package com.lovely3x.view;
+
+import android.view.InputDevice;
+import android.view.MotionEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * 触摸事件回放器
+ * 读取 {@link TouchRecorder} 记录的数据，在受控的时钟下按帧把事件重新分发给 {@link HeightView}
+ * 回放过程中控件的滚动器使用 {@link ManualClock}，每一帧推进固定的时间，
+ * 所以同一份记录在任何设备上回放都会得到相同的滚动轨迹和回调序列
+ */
+public class TouchReplayer {
+
+    /**
+     * 默认的帧间隔
+     */
+    public static final int DEFAULT_FRAME_INTERVAL_MS = 16;
+
+    /**
+     * 事件回放完成后最多再推进的帧数，等待fling和吸附结束
+     */
+    private static final int MAX_SETTLE_FRAMES = 1000;
+
+    private final byte[] mData;
+    private int mPosition;
+
+    private final ManualClock mClock = new ManualClock();
+    private int mFrameIntervalMs = DEFAULT_FRAME_INTERVAL_MS;
+
+    private HeightView mTarget;
+    private int mFrames;
+
+    /**
+     * 已经解码但还没有分发的事件
+     */
+    private boolean mHasPending;
+    private int mAction;
+    private long mEventTime;
+    private long mDownTime;
+    private int mPointerCount;
+    private int mHistorySize;
+    private int[] mPointerIds = new int[2];
+    /**
+     * 所有采样点的时间，最后一个是事件本身的时间
+     */
+    private long[] mSampleTimes = new long[8];
+    /**
+     * 所有采样点的坐标，按照 [sample][pointer][x,y] 排列
+     */
+    private float[] mSampleCoords = new float[32];
+    private long mLastEventTime;
+
+    private MotionEvent.PointerProperties[][] mPropertiesByCount = new MotionEvent.PointerProperties[2][];
+    private MotionEvent.PointerCoords[][] mCoordsByCount = new MotionEvent.PointerCoords[2][];
+
+    /**
+     * @param data {@link TouchRecorder#toByteArray()} 得到的数据
+     */
+    public TouchReplayer(byte[] data) {
+        mData = data;
+        if (data.length < TouchRecorder.HEADER_SIZE || readInt() != TouchRecorder.MAGIC) {
+            throw new IllegalArgumentException("not a touch trace");
+        }
+        int version = mData[mPosition++];
+        if (version != TouchRecorder.VERSION) {
+            throw new IllegalArgumentException("unsupported touch trace version " + version);
+        }
+    }
+
+    /**
+     * 从输入流中读取记录的数据
+     */
+    public static TouchReplayer read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return new TouchReplayer(out.toByteArray());
+    }
+
+    public int getFrameIntervalMs() {
+        return mFrameIntervalMs;
+    }
+
+    /**
+     * 设置每一帧推进的时间
+     *
+     * @param frameIntervalMs 帧间隔，单位毫秒
+     */
+    public void setFrameIntervalMs(int frameIntervalMs) {
+        if (frameIntervalMs <= 0) throw new IllegalArgumentException("frameIntervalMs must be > 0");
+        this.mFrameIntervalMs = frameIntervalMs;
+    }
+
+    /**
+     * 获取回放使用的时钟
+     */
+    public ManualClock getClock() {
+        return mClock;
+    }
+
+    /**
+     * 开始回放
+     * 控件的滚动器会切换到回放时钟，直到 {@link #finish()}
+     *
+     * @param target 需要回放的控件
+     */
+    public void start(HeightView target) {
+        mTarget = target;
+        mFrames = 0;
+        mHasPending = decodeNext();
+        mClock.setTime(mHasPending ? mEventTime : 0);
+        target.setAnimationClock(mClock);
+    }
+
+    /**
+     * 推进一帧：分发所有到期的事件，再推进滚动器
+     *
+     * @return 是否还有没有分发的事件或者没有结束的动画
+     */
+    public boolean stepFrame() {
+        if (mTarget == null) throw new IllegalStateException("call start() first");
+        final long frameTime = mClock.currentAnimationTimeMillis();
+        while (mHasPending && mEventTime <= frameTime) {
+            dispatchPending();
+            mHasPending = decodeNext();
+        }
+        mTarget.computeScroll();
+        mTarget.adjustMarker(false);
+        mFrames++;
+        mClock.advance(mFrameIntervalMs);
+        return mHasPending || mTarget.isAnimating();
+    }
+
+    /**
+     * 结束回放，恢复控件的系统时钟
+     */
+    public void finish() {
+        if (mTarget != null) {
+            mTarget.setAnimationClock(null);
+            mTarget.invalidate();
+            mTarget = null;
+        }
+    }
+
+    /**
+     * 同步回放全部事件，并等待动画结束
+     *
+     * @param target 需要回放的控件
+     * @return 回放使用的帧数
+     */
+    public int replay(HeightView target) {
+        start(target);
+        int settleFrames = 0;
+        while (stepFrame()) {
+            if (!mHasPending && ++settleFrames > MAX_SETTLE_FRAMES) break;
+        }
+        int frames = mFrames;
+        finish();
+        return frames;
+    }
+
+    /**
+     * 重新从头开始读取数据
+     */
+    public void rewind() {
+        mPosition = TouchRecorder.HEADER_SIZE;
+        mLastEventTime = 0;
+        mHasPending = false;
+    }
+
+    /**
+     * 把待分发的事件还原成 MotionEvent 并分发
+     */
+    private void dispatchPending() {
+        final int count = mPointerCount;
+        MotionEvent.PointerProperties[] properties = obtainProperties(count);
+        MotionEvent.PointerCoords[] coords = obtainCoords(count);
+        for (int p = 0; p < count; p++) {
+            properties[p].id = mPointerIds[p];
+            properties[p].toolType = MotionEvent.TOOL_TYPE_FINGER;
+        }
+
+        fillCoords(coords, 0);
+        MotionEvent event = MotionEvent.obtain(mDownTime, mSampleTimes[0], mAction, count, properties, coords,
+                0, 0, 1f, 1f, 0, 0, InputDevice.SOURCE_TOUCHSCREEN, 0);
+        for (int s = 1; s <= mHistorySize; s++) {
+            fillCoords(coords, s);
+            event.addBatch(mSampleTimes[s], coords, 0);
+        }
+        mTarget.dispatchTouchEvent(event);
+        event.recycle();
+    }
+
+    private void fillCoords(MotionEvent.PointerCoords[] coords, int sample) {
+        int offset = sample * mPointerCount * 2;
+        for (int p = 0; p < mPointerCount; p++) {
+            coords[p].clear();
+            coords[p].x = mSampleCoords[offset + p * 2];
+            coords[p].y = mSampleCoords[offset + p * 2 + 1];
+            coords[p].pressure = 1f;
+            coords[p].size = 1f;
+        }
+    }
+
+    private MotionEvent.PointerProperties[] obtainProperties(int count) {
+        if (count >= mPropertiesByCount.length) {
+            mPropertiesByCount = Arrays.copyOf(mPropertiesByCount, count + 1);
+        }
+        MotionEvent.PointerProperties[] properties = mPropertiesByCount[count];
+        if (properties == null) {
+            properties = mPropertiesByCount[count] = new MotionEvent.PointerProperties[count];
+            for (int i = 0; i < count; i++) properties[i] = new MotionEvent.PointerProperties();
+        }
+        return properties;
+    }
+
+    private MotionEvent.PointerCoords[] obtainCoords(int count) {
+        if (count >= mCoordsByCount.length) {
+            mCoordsByCount = Arrays.copyOf(mCoordsByCount, count + 1);
+        }
+        MotionEvent.PointerCoords[] coords = mCoordsByCount[count];
+        if (coords == null) {
+            coords = mCoordsByCount[count] = new MotionEvent.PointerCoords[count];
+            for (int i = 0; i < count; i++) coords[i] = new MotionEvent.PointerCoords();
+        }
+        return coords;
+    }
+
+    /**
+     * 解码下一个事件
+     *
+     * @return 是否还有事件
+     */
+    private boolean decodeNext() {
+        if (mPosition >= mData.length) return false;
+        mAction = (int) readVarLong();
+        mEventTime = mLastEventTime + readVarLong();
+        mDownTime = mEventTime - readVarLong();
+        mPointerCount = (int) readVarLong();
+        mHistorySize = (int) readVarLong();
+        mLastEventTime = mEventTime;
+
+        if (mPointerIds.length < mPointerCount) mPointerIds = new int[mPointerCount];
+        int samples = mHistorySize + 1;
+        if (mSampleTimes.length < samples) mSampleTimes = new long[samples];
+        if (mSampleCoords.length < samples * mPointerCount * 2) {
+            mSampleCoords = new float[samples * mPointerCount * 2];
+        }
+
+        for (int p = 0; p < mPointerCount; p++) {
+            mPointerIds[p] = (int) readVarLong();
+        }
+        int coord = 0;
+        for (int h = 0; h < mHistorySize; h++) {
+            mSampleTimes[h] = mEventTime - readVarLong();
+            for (int p = 0; p < mPointerCount; p++) {
+                mSampleCoords[coord++] = readFloat();
+                mSampleCoords[coord++] = readFloat();
+            }
+        }
+        mSampleTimes[mHistorySize] = mEventTime;
+        for (int p = 0; p < mPointerCount; p++) {
+            mSampleCoords[coord++] = readFloat();
+            mSampleCoords[coord++] = readFloat();
+        }
+        return true;
+    }
+
+    private int readInt() {
+        return ((mData[mPosition++] & 0xFF) << 24)
+                | ((mData[mPosition++] & 0xFF) << 16)
+                | ((mData[mPosition++] & 0xFF) << 8)
+                | (mData[mPosition++] & 0xFF);
+    }
+
+    private float readFloat() {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    private long readVarLong() {
+        long zigzag = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = mData[mPosition++];
+            zigzag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    /**
+     * 手动推进的时钟
+     */
+    public static class ManualClock implements AnimationClock {
+
+        private long mTime;
+
+        @Override
+        public long currentAnimationTimeMillis() {
+            return mTime;
+        }
+
+        public void setTime(long time) {
+            this.mTime = time;
+        }
+
+        public void advance(long millis) {
+            mTime += millis;
+        }
+    }
+}
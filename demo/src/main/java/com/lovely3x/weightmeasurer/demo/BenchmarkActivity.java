@@ -0,0 +1,205 @@
+package com.lovely3x.weightmeasurer.demo;
+
+import android.graphics.Color;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.support.v7.app.AppCompatActivity;
+import android.text.TextUtils;
+import android.util.Log;
+import android.util.TypedValue;
+import android.view.View;
+import android.view.WindowManager;
+import android.widget.CheckBox;
+import android.widget.EditText;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import com.lovely3x.view.HeightView;
+import com.lovely3x.view.RulerAnimationScheduler;
+import com.lovely3x.view.RulerMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 刻度尺压力测试
+ * 生成N个刻度尺，通过注入的 MotionEvent 回放脚本化的fling和拖动，
+ * 统计帧时间分位数和卡顿次数，用于衡量刻度尺数量和范围大小对性能的影响
+ */
+public class BenchmarkActivity extends AppCompatActivity implements View.OnClickListener {
+
+    private static final String TAG = "BenchmarkActivity";
+
+    /**
+     * 脚本结束后继续统计的时间，等待fling停下来
+     */
+    private static final int SETTLE_MS = 1500;
+
+    private static final int[] BACKGROUND_COLORS = {
+            Color.parseColor("#03b7ee"), Color.parseColor("#ff6600"),
+            Color.parseColor("#9c27b0"), Color.parseColor("#4caf50")
+    };
+
+    private EditText mCountInput;
+    private EditText mLinesInput;
+    private CheckBox mHorizontalCheck;
+    private CheckBox mStyledCheck;
+    private CheckBox mSharedCheck;
+    private TextView mResultText;
+    private LinearLayout mRulerContainer;
+
+    private final List<HeightView> mRulers = new ArrayList<>();
+    private final Handler mHandler = new Handler();
+    private FrameTimeRecorder mRecorder;
+    private boolean mRunning;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_benchmark);
+        mCountInput = (EditText) findViewById(R.id.et_benchmark_count);
+        mLinesInput = (EditText) findViewById(R.id.et_benchmark_lines);
+        mHorizontalCheck = (CheckBox) findViewById(R.id.cb_benchmark_horizontal);
+        mStyledCheck = (CheckBox) findViewById(R.id.cb_benchmark_styled);
+        mSharedCheck = (CheckBox) findViewById(R.id.cb_benchmark_shared);
+        mResultText = (TextView) findViewById(R.id.tv_benchmark_result);
+        mRulerContainer = (LinearLayout) findViewById(R.id.ll_benchmark_rulers);
+
+        findViewById(R.id.btn_benchmark_spawn).setOnClickListener(this);
+        findViewById(R.id.btn_benchmark_fling).setOnClickListener(this);
+        findViewById(R.id.btn_benchmark_drag).setOnClickListener(this);
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            WindowManager wm = (WindowManager) getSystemService(WINDOW_SERVICE);
+            mRecorder = new FrameTimeRecorder(wm.getDefaultDisplay().getRefreshRate());
+        } else {
+            mResultText.setText(R.string.benchmark_unsupported);
+        }
+        spawnRulers();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        mHandler.removeCallbacksAndMessages(null);
+        if (mRecorder != null) mRecorder.stop();
+    }
+
+    @Override
+    public void onClick(View v) {
+        if (mRunning) return;
+        switch (v.getId()) {
+            case R.id.btn_benchmark_spawn:
+                spawnRulers();
+                break;
+            case R.id.btn_benchmark_fling:
+                run("fling", GestureScript.flings(6, dp(240), 64, 900));
+                break;
+            case R.id.btn_benchmark_drag:
+                run("drag", GestureScript.drag(4, dp(160), 1000));
+                break;
+        }
+    }
+
+    /**
+     * 按照输入的参数重新生成刻度尺
+     */
+    private void spawnRulers() {
+        int count = readInt(mCountInput, 6);
+        int lines = readInt(mLinesInput, 240);
+        boolean horizontal = mHorizontalCheck.isChecked();
+        boolean styled = mStyledCheck.isChecked();
+        RulerAnimationScheduler scheduler = mSharedCheck.isChecked() ? RulerAnimationScheduler.getInstance() : null;
+
+        mRulerContainer.removeAllViews();
+        mRulerContainer.setOrientation(horizontal ? LinearLayout.VERTICAL : LinearLayout.HORIZONTAL);
+        mRulers.clear();
+
+        for (int i = 0; i < count; i++) {
+            HeightView ruler = new HeightView(this);
+            ruler.beginBatchEdit();
+            ruler.setOrientation(horizontal ? HeightView.HORIZONTAL : HeightView.VERTICAL);
+            ruler.setLines(lines);
+            int padding = (int) dp(8);
+            ruler.setPadding(padding, padding, padding, padding);
+            if (styled) {
+                ruler.setBackgroundColor(BACKGROUND_COLORS[i % BACKGROUND_COLORS.length]);
+                ruler.setLineWidth(dp(1 + i % 3));
+                ruler.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 10 + 2 * (i % 4), getResources().getDisplayMetrics()));
+                ruler.setHighLightColor(Color.RED);
+            }
+            ruler.setMetricsEnabled(true);
+            ruler.setAnimationScheduler(scheduler);
+            ruler.endBatchEdit();
+
+            LinearLayout.LayoutParams params = horizontal
+                    ? new LinearLayout.LayoutParams(LinearLayout.LayoutParams.MATCH_PARENT, 0, 1)
+                    : new LinearLayout.LayoutParams(0, LinearLayout.LayoutParams.MATCH_PARENT, 1);
+            params.setMargins(padding, padding, padding, padding);
+            mRulerContainer.addView(ruler, params);
+            mRulers.add(ruler);
+        }
+    }
+
+    /**
+     * 回放脚本并统计帧时间
+     */
+    private void run(final String name, GestureScript script) {
+        if (mRecorder == null) return;
+        mRunning = true;
+        mResultText.setText(R.string.benchmark_running);
+        for (HeightView ruler : mRulers) ruler.getMetrics().reset();
+
+        mRecorder.start();
+        script.play(mHandler, mRulers, new Runnable() {
+            @Override
+            public void run() {
+                mHandler.postDelayed(new Runnable() {
+                    @Override
+                    public void run() {
+                        mRecorder.stop();
+                        report(name);
+                        mRunning = false;
+                    }
+                }, SETTLE_MS);
+            }
+        });
+    }
+
+    private void report(String name) {
+        FrameTimeRecorder.Result frames = mRecorder.result();
+
+        RulerMetrics.Snapshot snapshot = new RulerMetrics.Snapshot();
+        long drawNanos = 0;
+        long maxDrawNanos = 0;
+        long skipped = 0;
+        for (HeightView ruler : mRulers) {
+            ruler.getMetrics().snapshot(snapshot);
+            drawNanos += snapshot.averageDrawNanos;
+            maxDrawNanos = Math.max(maxDrawNanos, snapshot.maxDrawNanos);
+            skipped += snapshot.skippedFrames;
+        }
+
+        String result = String.format(Locale.US, "%s: %d rulers x %d lines\n%s\ndraw avg=%.3fms/ruler max=%.3fms skipped=%d",
+                name, mRulers.size(), readInt(mLinesInput, 240), frames,
+                mRulers.isEmpty() ? 0 : drawNanos / 1e6 / mRulers.size(), maxDrawNanos / 1e6, skipped);
+        mResultText.setText(result);
+        Log.i(TAG, result);
+    }
+
+    private float dp(float value) {
+        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, value, getResources().getDisplayMetrics());
+    }
+
+    private static int readInt(EditText input, int defaultValue) {
+        CharSequence text = input.getText();
+        if (TextUtils.isEmpty(text)) return defaultValue;
+        try {
+            return Math.max(1, Integer.parseInt(text.toString()));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.lovely3x.weightmeasurer.demo;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.Choreographer;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 基于 Choreographer 的帧间隔记录器
+ * 记录每两个相邻 vsync 回调之间的间隔，用于计算帧时间分位数和卡顿次数
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+public class FrameTimeRecorder implements Choreographer.FrameCallback {
+
+    /**
+     * 最多记录的帧数
+     */
+    private static final int MAX_FRAMES = 8192;
+
+    private final long[] mIntervals = new long[MAX_FRAMES];
+    private int mCount;
+    private long mLastFrameNanos;
+    private boolean mRunning;
+
+    /**
+     * 期望的帧间隔
+     */
+    private final long mFrameIntervalNanos;
+
+    public FrameTimeRecorder(float refreshRate) {
+        mFrameIntervalNanos = (long) (1000000000L / (refreshRate > 0 ? refreshRate : 60f));
+    }
+
+    public void start() {
+        mCount = 0;
+        mLastFrameNanos = 0;
+        mRunning = true;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    public void stop() {
+        mRunning = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mRunning) return;
+        if (mLastFrameNanos != 0 && mCount < MAX_FRAMES) {
+            mIntervals[mCount++] = frameTimeNanos - mLastFrameNanos;
+        }
+        mLastFrameNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /**
+     * 生成统计结果
+     */
+    public Result result() {
+        Result result = new Result();
+        result.frames = mCount;
+        if (mCount == 0) return result;
+
+        long[] sorted = Arrays.copyOf(mIntervals, mCount);
+        Arrays.sort(sorted);
+        result.p50 = percentile(sorted, 0.50f);
+        result.p90 = percentile(sorted, 0.90f);
+        result.p95 = percentile(sorted, 0.95f);
+        result.p99 = percentile(sorted, 0.99f);
+        result.max = sorted[mCount - 1];
+
+        //一个间隔超过1.5倍帧间隔就算一次卡顿，并累计期间丢掉的帧
+        for (int i = 0; i < mCount; i++) {
+            long interval = mIntervals[i];
+            if (interval * 2 > mFrameIntervalNanos * 3) {
+                result.janks++;
+                result.droppedFrames += (interval + (mFrameIntervalNanos >> 1)) / mFrameIntervalNanos - 1;
+            }
+        }
+        return result;
+    }
+
+    private static long percentile(long[] sorted, float p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    /**
+     * 帧时间统计结果，单位纳秒
+     */
+    public static class Result {
+        public int frames;
+        public long p50;
+        public long p90;
+        public long p95;
+        public long p99;
+        public long max;
+        public int janks;
+        public long droppedFrames;
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "frames=%d janks=%d dropped=%d\np50=%.2fms p90=%.2fms p95=%.2fms p99=%.2fms max=%.2fms",
+                    frames, janks, droppedFrames, p50 / 1e6, p90 / 1e6, p95 / 1e6, p99 / 1e6, max / 1e6);
+        }
+    }
+}
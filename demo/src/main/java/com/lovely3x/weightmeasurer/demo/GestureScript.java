@@ -0,0 +1,169 @@
+package com.lovely3x.weightmeasurer.demo;
+
+import android.os.Handler;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+
+import com.lovely3x.view.HeightView;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 脚本化的触摸序列
+ * 以固定的间隔生成沿着刻度方向移动的 MotionEvent，并注入到一组刻度尺中
+ */
+public class GestureScript {
+
+    /**
+     * 注入事件的间隔
+     */
+    private static final int EVENT_INTERVAL_MS = 8;
+
+    /**
+     * 每个事件的时间偏移(相对于脚本开始)
+     */
+    private long[] mTimes = new long[64];
+    /**
+     * 每个事件的动作
+     */
+    private int[] mActions = new int[64];
+    /**
+     * 每个事件相对于起点的偏移
+     */
+    private float[] mOffsets = new float[64];
+    /**
+     * 每个事件所在手势的按下时间
+     */
+    private long[] mDownTimes = new long[64];
+    private int mCount;
+
+    /**
+     * 当前手势的按下时间
+     */
+    private long mStrokeStart;
+
+    /**
+     * 脚本的总时长
+     */
+    private long mDuration;
+
+    /**
+     * 生成若干次快速滑动
+     *
+     * @param flings     滑动次数
+     * @param distance   每次滑动的距离，正负交替
+     * @param durationMs 每次手指接触的时间
+     * @param pauseMs    每次滑动后等待的时间
+     */
+    public static GestureScript flings(int flings, float distance, int durationMs, int pauseMs) {
+        GestureScript script = new GestureScript();
+        for (int i = 0; i < flings; i++) {
+            float direction = (i & 1) == 0 ? 1 : -1;
+            script.stroke(direction * distance, durationMs);
+            script.mDuration += pauseMs;
+        }
+        return script;
+    }
+
+    /**
+     * 生成一次来回拖动
+     *
+     * @param cycles    来回的次数
+     * @param amplitude 拖动的幅度
+     * @param periodMs  每个来回的时间
+     */
+    public static GestureScript drag(int cycles, float amplitude, int periodMs) {
+        GestureScript script = new GestureScript();
+        long start = script.mStrokeStart = script.mDuration;
+        script.add(start, MotionEvent.ACTION_DOWN, 0);
+        int steps = cycles * periodMs / EVENT_INTERVAL_MS;
+        for (int i = 1; i <= steps; i++) {
+            long t = i * EVENT_INTERVAL_MS;
+            float offset = (float) (amplitude * Math.sin(2 * Math.PI * t / periodMs));
+            script.add(start + t, MotionEvent.ACTION_MOVE, offset);
+        }
+        //停住之后再抬起，不触发fling
+        long end = start + (steps + 1) * EVENT_INTERVAL_MS;
+        script.add(end + 120, MotionEvent.ACTION_UP, script.mOffsets[script.mCount - 1]);
+        script.mDuration = end + 120;
+        return script;
+    }
+
+    /**
+     * 添加一次按下-移动-抬起
+     */
+    private void stroke(float distance, int durationMs) {
+        long start = mStrokeStart = mDuration;
+        add(start, MotionEvent.ACTION_DOWN, 0);
+        int steps = Math.max(1, durationMs / EVENT_INTERVAL_MS);
+        for (int i = 1; i <= steps; i++) {
+            add(start + i * EVENT_INTERVAL_MS, MotionEvent.ACTION_MOVE, distance * i / steps);
+        }
+        long end = start + (steps + 1) * EVENT_INTERVAL_MS;
+        add(end, MotionEvent.ACTION_UP, distance);
+        mDuration = end;
+    }
+
+    private void add(long time, int action, float offset) {
+        if (mCount == mTimes.length) {
+            mTimes = Arrays.copyOf(mTimes, mCount * 2);
+            mActions = Arrays.copyOf(mActions, mCount * 2);
+            mOffsets = Arrays.copyOf(mOffsets, mCount * 2);
+            mDownTimes = Arrays.copyOf(mDownTimes, mCount * 2);
+        }
+        mDownTimes[mCount] = mStrokeStart;
+        mTimes[mCount] = time;
+        mActions[mCount] = action;
+        mOffsets[mCount] = offset;
+        mCount++;
+    }
+
+    public long getDuration() {
+        return mDuration;
+    }
+
+    /**
+     * 按照脚本的时间把事件注入到所有的刻度尺中
+     *
+     * @param handler  用于调度的handler
+     * @param rulers   需要注入的刻度尺
+     * @param finished 脚本执行完成后的回调
+     */
+    public void play(final Handler handler, final List<HeightView> rulers, final Runnable finished) {
+        final long startTime = SystemClock.uptimeMillis();
+        handler.post(new Runnable() {
+            private int mNext;
+
+            @Override
+            public void run() {
+                long now = SystemClock.uptimeMillis();
+                while (mNext < mCount && startTime + mTimes[mNext] <= now) {
+                    dispatch(rulers, startTime + mDownTimes[mNext], startTime + mTimes[mNext], mActions[mNext], mOffsets[mNext]);
+                    mNext++;
+                }
+                if (mNext < mCount) {
+                    handler.postAtTime(this, startTime + mTimes[mNext]);
+                } else if (finished != null) {
+                    finished.run();
+                }
+            }
+        });
+    }
+
+    private static void dispatch(List<HeightView> rulers, long downTime, long eventTime, int action, float offset) {
+        for (int i = 0; i < rulers.size(); i++) {
+            HeightView ruler = rulers.get(i);
+            float x = ruler.getWidth() / 2f;
+            float y = ruler.getHeight() / 2f;
+            if (ruler.getOrientation() == HeightView.HORIZONTAL) {
+                x += offset;
+            } else {
+                y += offset;
+            }
+            MotionEvent event = MotionEvent.obtain(downTime, eventTime, action, x, y, 0);
+            ruler.dispatchTouchEvent(event);
+            event.recycle();
+        }
+    }
+}
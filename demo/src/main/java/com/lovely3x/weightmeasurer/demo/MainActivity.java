@@ -15,13 +15,8 @@ public class MainActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
         final HeightView hv = (HeightView) findViewById(R.id.hv_activity_main);
-        hv.post(new Runnable() {
-            @Override
-            public void run() {
-                //设置选中项
-                hv.setCurrentLineIndex(0);
-            }
-        });
+        //设置选中项，位置和控件的尺寸无关，不需要等到布局之后；重建时控件自己恢复选中的刻度
+        if (savedInstanceState == null) hv.setCurrentLineIndex(0);
 
         hv.setOnItemChangedListener(new HeightView.OnItemChangedListener() {
             @Override